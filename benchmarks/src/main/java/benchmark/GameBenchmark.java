@@ -0,0 +1,181 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import chess.eval.Evaluator;
+import chess.eval.PieceSquareTables;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal move generation, game status checks and evaluation for the side to move.
+ * <p>
+ * ChessGame memoizes legal moves per position, so the move generation and
+ * status benchmarks reset the turn first to drop the cached moves and time a
+ * fresh generation. {@link #validMovesCached()} times the cache hit on purpose.
+ * {@link #makeUnmake()} times one doMove/undoMove pair, cycling through the
+ * position's legal moves worked out in setup. {@link #squareScoreKept()} and
+ * {@link #squareScoreSummed()} also read a piece-square sum after the move and
+ * after the undo, one kept up to date by the board as Evaluator reads it and
+ * one summed from scratch; their time less makeUnmake's is the cost of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param
+    public Positions.Position position;
+
+    private ChessGame game;
+    private ChessGame.TeamColor turn;
+    private ChessPosition[] squares;
+    private final Evaluator evaluator = new Evaluator();
+    private final MoveList moves = new MoveList();
+    private int[] playable;
+    private final int[] squareValues = new int[12 * 64];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        game = position.newGame();
+        turn = game.getTeamTurn();
+        squares = Positions.piecePositions(game.getBoard(), turn);
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        playable = new int[legal.size()];
+        for (int i = 0; i < playable.length; i++) {
+            playable[i] = legal.get(i);
+        }
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                ChessPiece piece = ChessPiece.of(team, type);
+                for (int square = 0; square < 64; square++) {
+                    squareValues[(team.ordinal() * 6 + type.ordinal()) * 64 + square]
+                            = PieceSquareTables.value(piece, square);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int validMoves() {
+        game.setTeamTurn(turn);
+        return countValidMoves();
+    }
+
+    @Benchmark
+    public int validMovesCached() {
+        return countValidMoves();
+    }
+
+    @Benchmark
+    public int legalMoves() {
+        moves.clear();
+        game.legalMoves(moves);
+        return moves.size();
+    }
+
+    private int countValidMoves() {
+        int count = 0;
+        for (ChessPosition square : squares) {
+            Collection<ChessMove> moves = game.validMoves(square);
+            count += moves.size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(turn);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        game.setTeamTurn(turn);
+        return game.isInCheckmate(turn);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        game.setTeamTurn(turn);
+        return game.isInStalemate(turn);
+    }
+
+    @Benchmark
+    public ChessGame.GameStatus status() {
+        game.setTeamTurn(turn);
+        return game.status(turn);
+    }
+
+    @Benchmark
+    public long makeUnmake() {
+        int move = playable[next];
+        next = next + 1 == playable.length ? 0 : next + 1;
+        game.doMove(move);
+        long key = game.zobristKey();
+        game.undoMove();
+        return key;
+    }
+
+    @Benchmark
+    public int squareScoreKept() {
+        int move = playable[next];
+        next = next + 1 == playable.length ? 0 : next + 1;
+        game.doMove(move);
+        int score = game.getBoard().squareScore(squareValues);
+        game.undoMove();
+        return score + game.getBoard().squareScore(squareValues);
+    }
+
+    @Benchmark
+    public int squareScoreSummed() {
+        int move = playable[next];
+        next = next + 1 == playable.length ? 0 : next + 1;
+        game.doMove(move);
+        int score = pieceSquareSum(game.getBoard());
+        game.undoMove();
+        return score + pieceSquareSum(game.getBoard());
+    }
+
+    private int pieceSquareSum(ChessBoard board) {
+        int score = 0;
+        long occupied = board.occupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            ChessPiece piece = board.getPiece(square);
+            score += squareValues[(piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal()) * 64
+                    + square];
+        }
+        return score;
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return evaluator.evaluate(game);
+    }
+
+    /**
+     * Replays the FullGameTest moves through makeMove on a fresh game,
+     * finishing with the status check the server runs after each move
+     */
+    @Benchmark
+    public boolean fullGame() throws InvalidMoveException {
+        ChessGame fullGame = new ChessGame();
+        for (ChessMove move : Positions.FULL_GAME) {
+            fullGame.makeMove(move);
+        }
+        return fullGame.status(ChessGame.TeamColor.BLACK) == ChessGame.GameStatus.CHECKMATE;
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation of every piece in a position
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param
+    public Positions.Position position;
+
+    private ChessBoard board;
+    private ChessPosition[] squares;
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setUp() {
+        board = position.newGame().getBoard();
+        ChessPosition[] white = Positions.piecePositions(board, ChessGame.TeamColor.WHITE);
+        ChessPosition[] black = Positions.piecePositions(board, ChessGame.TeamColor.BLACK);
+        squares = new ChessPosition[white.length + black.length];
+        System.arraycopy(white, 0, squares, 0, white.length);
+        System.arraycopy(black, 0, squares, white.length, black.length);
+        pieces = new ChessPiece[squares.length];
+        for (int i = 0; i < squares.length; i++) {
+            pieces[i] = board.getPiece(squares[i]);
+        }
+    }
+
+    @Benchmark
+    public int pieceMoves() {
+        int count = 0;
+        for (int i = 0; i < squares.length; i++) {
+            count += pieces[i].pieceMoves(board, squares[i]).size();
+        }
+        return count;
+    }
+}
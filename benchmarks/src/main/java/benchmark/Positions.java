@@ -0,0 +1,74 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.codec.Fen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed positions the benchmarks run over, so results stay comparable
+ * between runs
+ */
+public final class Positions {
+
+    /**
+     * Benchmark positions as piece placement (rank 8 first, as in FEN) and side to move
+     */
+    public enum Position {
+        OPENING("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", ChessGame.TeamColor.WHITE),
+        MIDDLEGAME("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R", ChessGame.TeamColor.WHITE),
+        TACTICAL("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1", ChessGame.TeamColor.WHITE),
+        ROOK_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8", ChessGame.TeamColor.WHITE),
+        QUEEN_ENDGAME("8/8/8/4k3/8/8/3QK3/8", ChessGame.TeamColor.BLACK);
+
+        private final String placement;
+        private final ChessGame.TeamColor turn;
+
+        Position(String placement, ChessGame.TeamColor turn) {
+            this.placement = placement;
+            this.turn = turn;
+        }
+
+        public ChessGame newGame() {
+            return Fen.parseGame(placement + (turn == ChessGame.TeamColor.WHITE ? " w" : " b"));
+        }
+    }
+
+    /**
+     * The moves of FullGameTest, a scholar's mate ending in black's checkmate
+     */
+    public static final List<ChessMove> FULL_GAME = List.of(
+            move(2, 5, 4, 5), move(7, 5, 5, 5),
+            move(1, 6, 4, 3), move(8, 7, 6, 6),
+            move(1, 4, 5, 8), move(8, 2, 6, 3),
+            move(5, 8, 7, 6));
+
+    private Positions() {
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+
+    /**
+     * @return the squares holding a piece of the given team
+     */
+    public static ChessPosition[] piecePositions(ChessBoard board, ChessGame.TeamColor color) {
+        List<ChessPosition> positions = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == color) {
+                    positions.add(position);
+                }
+            }
+        }
+        return positions.toArray(new ChessPosition[0]);
+    }
+}
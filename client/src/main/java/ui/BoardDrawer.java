@@ -128,7 +128,7 @@ public class BoardDrawer {
      * Draws a single square with its piece (if any)
      */
     private void drawSquare(ChessBoard board, int row, int col, Set<ChessPosition> highlightPositions) {
-        ChessPosition position = new ChessPosition(row, col);
+        ChessPosition position = ChessPosition.of(row, col);
         ChessPiece piece = board.getPiece(position);
 
         // Check if this position should be highlighted
@@ -193,7 +193,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
             }
         }
         
-        return new ChessMove(start, end, null);
+        return ChessMove.of(start, end, null);
     }
     
     private ChessMove createPromotionMove(ChessPosition start, ChessPosition end) {
@@ -209,7 +209,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
         if (!promotionInput.matches("[qrbn]")) {
             System.out.println("Invalid promotion piece. Defaulting to Queen.");
         }
-        return new ChessMove(start, end, promotionPiece);
+        return ChessMove.of(start, end, promotionPiece);
     }
 
     private ChessPosition parsePosition(String pos) {
@@ -227,7 +227,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
         int colNum = col - 'a' + 1; // a=1, b=2, ..., h=8
         int rowNum = row - '0';     // 1-8
         
-        return new ChessPosition(rowNum, colNum);
+        return ChessPosition.of(rowNum, colNum);
     }
 
     @Override
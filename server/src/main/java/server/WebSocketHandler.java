@@ -182,29 +182,43 @@ public class WebSocketHandler {
             ChessGame.TeamColor opponentColor = (currentTurn == ChessGame.TeamColor.WHITE)
                     ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
 
-            if (game.isInCheckmate(opponentColor)) {
-                String opponentUsername = (opponentColor == ChessGame.TeamColor.WHITE)
-                        ? gameData.whiteUsername() : gameData.blackUsername();
-                NotificationMessage checkmateNotification = new NotificationMessage(
-                        opponentUsername + " is in checkmate. " + username + " wins!"
-                );
-                connectionManager.broadcast(command.getGameID(), gson.toJson(checkmateNotification));
-                game.setGameOver(true);
-                gameDAO.updateGame(command.getGameID(), game);
-            } else if (game.isInStalemate(opponentColor)) {
-                NotificationMessage stalemateNotification = new NotificationMessage(
-                        "Game ended in stalemate"
-                );
-                connectionManager.broadcast(command.getGameID(), gson.toJson(stalemateNotification));
-                game.setGameOver(true);
-                gameDAO.updateGame(command.getGameID(), game);
-            } else if (game.isInCheck(opponentColor)) {
-                String opponentUsername = (opponentColor == ChessGame.TeamColor.WHITE)
-                        ? gameData.whiteUsername() : gameData.blackUsername();
-                NotificationMessage checkNotification = new NotificationMessage(
-                        opponentUsername + " is in check"
-                );
-                connectionManager.broadcast(command.getGameID(), gson.toJson(checkNotification));
+            String opponentUsername = (opponentColor == ChessGame.TeamColor.WHITE)
+                    ? gameData.whiteUsername() : gameData.blackUsername();
+            ChessGame.GameStatus status = game.status(opponentColor);
+            switch (status) {
+                case CHECKMATE -> {
+                    NotificationMessage checkmateNotification = new NotificationMessage(
+                            opponentUsername + " is in checkmate. " + username + " wins!"
+                    );
+                    connectionManager.broadcast(command.getGameID(), gson.toJson(checkmateNotification));
+                    game.setGameOver(true);
+                    gameDAO.updateGame(command.getGameID(), game);
+                }
+                case STALEMATE -> {
+                    NotificationMessage stalemateNotification = new NotificationMessage(
+                            "Game ended in stalemate"
+                    );
+                    connectionManager.broadcast(command.getGameID(), gson.toJson(stalemateNotification));
+                    game.setGameOver(true);
+                    gameDAO.updateGame(command.getGameID(), game);
+                }
+                case REPETITION, FIFTY_MOVE_RULE -> {
+                    NotificationMessage drawNotification = new NotificationMessage(
+                            "Game ended in a draw by " + (status == ChessGame.GameStatus.REPETITION
+                                    ? "threefold repetition" : "the fifty-move rule")
+                    );
+                    connectionManager.broadcast(command.getGameID(), gson.toJson(drawNotification));
+                    game.setGameOver(true);
+                    gameDAO.updateGame(command.getGameID(), game);
+                }
+                case CHECK -> {
+                    NotificationMessage checkNotification = new NotificationMessage(
+                            opponentUsername + " is in check"
+                    );
+                    connectionManager.broadcast(command.getGameID(), gson.toJson(checkNotification));
+                }
+                case NORMAL -> {
+                }
             }
 
         } catch (DataAccessException e) {
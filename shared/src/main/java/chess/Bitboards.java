@@ -0,0 +1,259 @@
+package chess;
+
+/**
+ * Precomputed attack tables and bit helpers for the bitboard representation
+ * used by {@link ChessBoard}.
+ * <p>
+ * Knight, king and pawn targets are one table entry per square. Rook and
+ * bishop targets are looked up with magic bitboards: the blockers on a
+ * square's relevant lines are multiplied by a per-square magic number, and
+ * the top bits of the product index that square's attack table.
+ * <p>
+ * Squares are numbered 0-63 with a1 = 0, h1 = 7 and h8 = 63, so a square's
+ * index is {@code (row - 1) * 8 + (column - 1)}.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    //Ray directions, the first four step towards higher square indexes
+    static final int NORTH = 0;
+    static final int NORTH_EAST = 1;
+    static final int EAST = 2;
+    static final int NORTH_WEST = 3;
+    static final int SOUTH = 4;
+    static final int SOUTH_WEST = 5;
+    static final int WEST = 6;
+    static final int SOUTH_EAST = 7;
+
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {1, 1}, {0, 1}, {1, -1},
+            {-1, 0}, {-1, -1}, {0, -1}, {-1, 1}
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+    //Squares strictly between two squares on a shared line, 0 when not aligned
+    private static final long[][] BETWEEN = new long[64][64];
+
+    //Magic numbers found offline with a random search, one per square
+    private static final long[] ROOK_MAGICS = {
+            0x7080024000108620L, 0x0040200010004000L, 0x0100081020004500L, 0x3880048110000801L,
+            0x4200200200080410L, 0x2400900400082002L, 0x45000B000F860004L, 0x220004038040A116L,
+            0x010280002084400AL, 0x0026402004401000L, 0x0045002002110048L, 0x0043002300100009L,
+            0x004280801C002800L, 0x4001800401801200L, 0x0022000438A20001L, 0x408100120040A100L,
+            0x0160808000401020L, 0x0020004008205000L, 0x0000430010200300L, 0x4001818008005000L,
+            0x1D04008008008004L, 0x6002080110204004L, 0x2009040001081002L, 0x8094020020804401L,
+            0x00C00049800080A7L, 0x80015000C0002000L, 0xC000220200108040L, 0x00A8018480100108L,
+            0x0108000880800400L, 0x0A00040080020080L, 0x1A01080400104A31L, 0x000200A200011044L,
+            0x4080006001400040L, 0x240080400C802000L, 0x880500104100200AL, 0x0000080284801000L,
+            0x0900800800800401L, 0x5002018402001008L, 0x0000488104001002L, 0x8402048862000411L,
+            0x0000802040008000L, 0x2C20500020004000L, 0x001A004080120020L, 0x80800A0040220010L,
+            0x0204008008008004L, 0x1218020004008080L, 0x0140025118040050L, 0x0824030C40820024L,
+            0x0040220081005200L, 0x0040004421108300L, 0x4420041001208480L, 0x0862082010420200L,
+            0x0D02001861100E00L, 0x8126001008040200L, 0x0064110218D00400L, 0x0427000482284100L,
+            0x0000108040220102L, 0x0000804020160102L, 0x0000400812008022L, 0x0000050010002009L,
+            0x0102001108604402L, 0x1002000110844802L, 0x0401001200440781L, 0x0281000045802203L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0420420088048088L, 0x0020A242184102C0L, 0x4208084043861180L, 0x0054251201004000L,
+            0x0844050400005004L, 0x0515042044040004L, 0x4021010802404004L, 0x3000940488081800L,
+            0x0000C00401020208L, 0x01022011112A0884L, 0x0D80100440404000L, 0x0520044040800400L,
+            0x8444020210002040L, 0x8008028820180200L, 0x0180040A01300800L, 0x0000842208048480L,
+            0x0910004004083084L, 0x00081802B8010420L, 0x00140428004C0008L, 0x0008000682004610L,
+            0x0100820400E00200L, 0x000B000811089000L, 0x4812024401240200L, 0x820040103A080404L,
+            0x8024100422200120L, 0x001030B40C234604L, 0x0020480044002400L, 0x0040040085101020L,
+            0x0040840105802000L, 0x4210010000241101L, 0x1202040200410802L, 0x4040608000420802L,
+            0x0218048401512000L, 0xE008080200090202L, 0x8004060110180040L, 0x0000A00800150104L,
+            0x1C01020400020500L, 0x0001080A00002206L, 0x8012040860140204L, 0x010C004202044329L,
+            0x1084108288091031L, 0x4084046202002800L, 0x2001004232001002L, 0x2000104208000080L,
+            0x2108200414000040L, 0x0001200089010A81L, 0x3219A20492004400L, 0x0010148107010148L,
+            0x4402080402080080L, 0x4210844118600100L, 0x4800050401040410L, 0x0800006020880010L,
+            0x30080020020C80C0L, 0x02C446040806040CL, 0x0010021001021044L, 0x4002182801015202L,
+            0x0409820800A2080AL, 0x004000C608050808L, 0x0800008044040412L, 0x0410010280840408L,
+            0x1210A02012420200L, 0x8302400404084200L, 0x020090042840C400L, 0x0808100088004086L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLES = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLES = new long[64][];
+
+    static {
+        int[][] knightSteps = {
+                {2, 1}, {1, 2}, {-1, 2}, {-2, 1},
+                {1, -2}, {2, -1}, {-1, -2}, {-2, -1}
+        };
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[square] |= bit(row + step[0], col + step[1]);
+            }
+            for (int direction = 0; direction < 8; direction++) {
+                int[] step = DIRECTIONS[direction];
+                KING_ATTACKS[square] |= bit(row + step[0], col + step[1]);
+                int r = row + step[0];
+                int c = col + step[1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    RAYS[direction][square] |= 1L << (r * 8 + c);
+                    r += step[0];
+                    c += step[1];
+                }
+            }
+            PAWN_ATTACKS[0][square] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+            PAWN_ATTACKS[1][square] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+        }
+        for (int square = 0; square < 64; square++) {
+            for (int direction = 0; direction < 8; direction++) {
+                long ray = RAYS[direction][square];
+                while (ray != 0) {
+                    int target = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    BETWEEN[square][target] = RAYS[direction][square] & ~RAYS[direction][target] & ~(1L << target);
+                }
+            }
+        }
+
+        int[] rookDirections = {NORTH, EAST, SOUTH, WEST};
+        int[] bishopDirections = {NORTH_EAST, NORTH_WEST, SOUTH_EAST, SOUTH_WEST};
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASKS[square] = (RAYS[NORTH][square] & ~RANK_8) | (RAYS[SOUTH][square] & ~RANK_1)
+                    | (RAYS[EAST][square] & ~FILE_H) | (RAYS[WEST][square] & ~FILE_A);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            ROOK_TABLES[square] = magicTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square],
+                    rookDirections);
+
+            long edges = FILE_A | FILE_H | RANK_1 | RANK_8;
+            BISHOP_MASKS[square] = (RAYS[NORTH_EAST][square] | RAYS[NORTH_WEST][square]
+                    | RAYS[SOUTH_EAST][square] | RAYS[SOUTH_WEST][square]) & ~edges;
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            BISHOP_TABLES[square] = magicTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square],
+                    BISHOP_SHIFTS[square], bishopDirections);
+        }
+    }
+
+    /**
+     * Builds the attack table of one square, indexed by the magic product of
+     * each blocker subset of mask
+     */
+    private static long[] magicTable(int square, long mask, long magic, int shift, int[] directions) {
+        long[] table = new long[1 << (64 - shift)];
+        //Walk every subset of mask with the carry-rippler trick
+        long subset = 0;
+        do {
+            long attacks = 0;
+            for (int direction : directions) {
+                attacks |= rayAttacks(direction, square, subset);
+            }
+            int index = (int) ((subset * magic) >>> shift);
+            if (table[index] != 0 && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic number for square " + square);
+            }
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        return table;
+    }
+
+    private Bitboards() {
+    }
+
+    private static long bit(int row, int col) {
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            return 0L;
+        }
+        return 1L << (row * 8 + col);
+    }
+
+    /**
+     * @return the 0-63 square index of a 1-based row and column
+     */
+    public static int square(int row, int col) {
+        return ((row - 1) << 3) | (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square attacks
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a rank, file
+     * or diagonal, or 0 if they don't
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Squares reached from square along one direction, up to and including
+     * the first occupied square
+     */
+    static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            int blocker = direction < SOUTH
+                    ? Long.numberOfTrailingZeros(blockers)
+                    : 63 - Long.numberOfLeadingZeros(blockers);
+            ray ^= RAYS[direction][blocker];
+        }
+        return ray;
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLES[square][index];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLES[square][index];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+}
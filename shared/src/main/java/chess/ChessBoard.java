@@ -1,18 +1,76 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * The {@code squares} array is the serialized form of the board. Alongside it
+ * the board keeps one bitboard per piece kind plus occupancy masks (see
+ * {@link Bitboards} for the square numbering), which the move generator and
+ * attack checks work from, and a per-team map of attacked squares that is
+ * updated incrementally as pieces are added and removed. The bitboards are rebuilt on first use whenever
+ * {@code squares} was replaced from outside, e.g. by Gson.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
     ChessPiece[][] squares = new ChessPiece[8][8];
+
+    private static final int WHITE_KING = pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+    private static final int WHITE_QUEEN = pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+    private static final int WHITE_BISHOP = pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+    private static final int WHITE_ROOK = pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+    private static final int WHITE_KNIGHT = pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+    private static final int WHITE_PAWN = pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+    private static final int BLACK_KING = pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+    private static final int BLACK_QUEEN = pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+    private static final int BLACK_BISHOP = pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+    private static final int BLACK_ROOK = pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+    private static final int BLACK_KNIGHT = pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+    private static final int BLACK_PAWN = pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+
+    //Indexed by pieceIndex(color, type)
+    private transient long[] pieceSets = new long[12];
+    //Indexed by TeamColor ordinal
+    private transient long[] colorSets = new long[2];
+    private transient long occupied;
+    //Zobrist key of the piece placement
+    private transient long zobristKey;
+    //Zobrist key of the pawns alone
+    private transient long pawnKey;
+    //Table squareScore sums, indexed by pieceIndex * 64 + square, or null when no sum is kept
+    private transient int[] squareValues;
+    private transient int squareScore;
+    //Square of each team's king, or -1 when it has none
+    private transient int[] kingSquares = {-1, -1};
+    //Squares attacked from each square by the piece standing on it
+    private transient long[] attacksFrom = new long[64];
+    //Number of pieces of a team attacking a square, indexed by color * 64 + square
+    private transient int[] attackCounts = new int[128];
+    //Squares attacked by each team, indexed by TeamColor ordinal
+    private transient long[] attackMaps = new long[2];
+    //The squares array the bitboards were built from
+    private transient ChessPiece[][] indexedSquares = squares;
+
     public ChessBoard() {
     }
+
+    /**
+     * Creates a board holding the same pieces as another board
+     */
+    public ChessBoard(ChessBoard other) {
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(other.squares[row], 0, squares[row], 0, 8);
+        }
+        indexPieces();
+    }
+
+    /**
+     * Gives direct access to the mailbox array. Changes made through it
+     * bypass the bitboards, so use {@link #addPiece} to edit the board.
+     */
     public ChessPiece[][] getSquares(){
         return squares;
     }
@@ -24,7 +82,8 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        ensureIndexed();
+        setSquare(Bitboards.square(position), piece);
     }
 
     /**
@@ -43,41 +102,343 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        // Clear the board first
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                squares[i][j] = null;
+        squares = new ChessPiece[8][8];
+        clearIndex();
+
+        ChessPiece.PieceType[] backRank = {
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+        };
+        for (int col = 0; col < 8; col++) {
+            //White piece set-up
+            squares[0][col] = ChessPiece.of(ChessGame.TeamColor.WHITE, backRank[col]);
+            squares[1][col] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+
+            //Black piece set-up
+            squares[7][col] = ChessPiece.of(ChessGame.TeamColor.BLACK, backRank[col]);
+            squares[6][col] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        }
+        indexPieces();
+    }
+
+    /**
+     * @return index of a piece kind into the per-piece bitboards
+     */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * Gets the piece on a 0-63 square index
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * Puts a piece on a 0-63 square index, or clears it when piece is null
+     */
+    public void addPiece(int square, ChessPiece piece) {
+        ensureIndexed();
+        setSquare(square, piece);
+    }
+
+    /**
+     * @return bitboard of every square holding the given kind of piece
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureIndexed();
+        return pieceSets[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given team
+     */
+    public long pieces(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return colorSets[color.ordinal()];
+    }
+
+    /**
+     * Gets the 0-63 square of a team's king. Iterate {@link #pieces(ChessGame.TeamColor)}
+     * to visit the rest of a team's pieces without scanning empty squares.
+     *
+     * @return the king's square, or -1 if the team has no king on the board
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long occupied() {
+        ensureIndexed();
+        return occupied;
+    }
+
+    /**
+     * Gets the 64-bit Zobrist key of the piece placement, kept up to date as
+     * pieces are added and removed. It doesn't include the side to move, see
+     * {@link ChessGame#zobristKey()}.
+     *
+     * @return the board's Zobrist key
+     */
+    public long zobristKey() {
+        ensureIndexed();
+        return zobristKey;
+    }
+
+    /**
+     * Gets the Zobrist key of the pawns alone, kept up to date like
+     * {@link #zobristKey()}. Boards with the same pawns share it, so it keys
+     * caches of pawn structure.
+     *
+     * @return the pawns' Zobrist key, 0 when there are none
+     */
+    public long pawnKey() {
+        ensureIndexed();
+        return pawnKey;
+    }
+
+    /**
+     * Gets the sum of a value for each piece, looked up by its kind and square,
+     * which the board keeps up to date as pieces are added and removed once
+     * it's been asked for. Only one table is kept at a time, so asking with a
+     * different one sums the board again.
+     *
+     * @param values value of each piece on each square, indexed by
+     *               (TeamColor ordinal * 6 + PieceType ordinal) * 64 + square
+     * @return the sum of the values of the pieces on the board
+     */
+    public int squareScore(int[] values) {
+        ensureIndexed();
+        if (values != squareValues) {
+            if (values.length != 12 * 64) {
+                throw new IllegalArgumentException("Expected 768 square values, got " + values.length);
             }
+            squareValues = values;
+            squareScore = 0;
+            for (int index = 0; index < 12; index++) {
+                long pieces = pieceSets[index];
+                while (pieces != 0) {
+                    squareScore += values[index * 64 + Long.numberOfTrailingZeros(pieces)];
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        return squareScore;
+    }
+
+    /**
+     * @return bitboard of every square attacked by the given team
+     */
+    public long attacks(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return attackMaps[color.ordinal()];
+    }
+
+    /**
+     * @return true if any piece of the given team attacks the 0-63 square
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor byColor) {
+        ensureIndexed();
+        return (attackMaps[byColor.ordinal()] & (1L << square)) != 0;
+    }
+
+    /**
+     * Finds the pieces of both teams attacking a square if only the squares in
+     * occupied were filled, so sliders see through pieces taken off it. Pieces
+     * outside occupied are still returned; mask them out if they're gone.
+     *
+     * @param square   0-63 square the attackers aim at
+     * @param occupied bitboard of the squares that block sliders
+     * @return bitboard of the attacking pieces
+     */
+    public long attackersTo(int square, long occupied) {
+        ensureIndexed();
+        long queens = pieceSets[WHITE_QUEEN] | pieceSets[BLACK_QUEEN];
+        long diagonal = queens | pieceSets[WHITE_BISHOP] | pieceSets[BLACK_BISHOP];
+        long straight = queens | pieceSets[WHITE_ROOK] | pieceSets[BLACK_ROOK];
+        return (Bitboards.pawnAttacks(ChessGame.TeamColor.BLACK, square) & pieceSets[WHITE_PAWN])
+                | (Bitboards.pawnAttacks(ChessGame.TeamColor.WHITE, square) & pieceSets[BLACK_PAWN])
+                | (Bitboards.knightAttacks(square) & (pieceSets[WHITE_KNIGHT] | pieceSets[BLACK_KNIGHT]))
+                | (Bitboards.kingAttacks(square) & (pieceSets[WHITE_KING] | pieceSets[BLACK_KING]))
+                | (Bitboards.bishopAttacks(square, occupied) & diagonal)
+                | (Bitboards.rookAttacks(square, occupied) & straight);
+    }
+
+    private void setSquare(int square, ChessPiece piece) {
+        long mask = 1L << square;
+        ChessPiece old = squares[square >>> 3][square & 7];
+        if (old != null) {
+            int index = pieceIndex(old.getTeamColor(), old.getPieceType());
+            pieceSets[index] &= ~mask;
+            zobristKey ^= Zobrist.piece(index, square);
+            if (old.getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawnKey ^= Zobrist.piece(index, square);
+            }
+            if (squareValues != null) {
+                squareScore -= squareValues[index * 64 + square];
+            }
+            colorSets[old.getTeamColor().ordinal()] &= ~mask;
+            occupied &= ~mask;
+            if (old.getPieceType() == ChessPiece.PieceType.KING) {
+                updateKingSquare(old.getTeamColor());
+            }
+            updateAttacks(old.getTeamColor(), attacksFrom[square], 0L);
+            attacksFrom[square] = 0L;
+        }
+        squares[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+            pieceSets[index] |= mask;
+            zobristKey ^= Zobrist.piece(index, square);
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawnKey ^= Zobrist.piece(index, square);
+            }
+            if (squareValues != null) {
+                squareScore += squareValues[index * 64 + square];
+            }
+            colorSets[piece.getTeamColor().ordinal()] |= mask;
+            occupied |= mask;
+            if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                updateKingSquare(piece.getTeamColor());
+            }
+        }
+
+        //Sliders looking at this square only see further when its occupancy changes
+        if ((old == null) != (piece == null)) {
+            refreshSliders(square);
+        }
+        if (piece != null) {
+            long attacks = attacksOf(piece, square);
+            updateAttacks(piece.getTeamColor(), 0L, attacks);
+            attacksFrom[square] = attacks;
         }
-        
-        //White piece set-up
-        squares[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        squares[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        squares[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        
-        //Pawns for white
-        for (int i = 0; i < 8; i++) {
-            squares[1][i] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+    }
+
+    private void updateKingSquare(ChessGame.TeamColor color) {
+        long kings = pieceSets[pieceIndex(color, ChessPiece.PieceType.KING)];
+        kingSquares[color.ordinal()] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    private long attacksOf(ChessPiece piece, int square) {
+        return switch (piece.getPieceType()) {
+            case KING -> Bitboards.kingAttacks(square);
+            case QUEEN -> Bitboards.queenAttacks(square, occupied);
+            case BISHOP -> Bitboards.bishopAttacks(square, occupied);
+            case KNIGHT -> Bitboards.knightAttacks(square);
+            case ROOK -> Bitboards.rookAttacks(square, occupied);
+            case PAWN -> Bitboards.pawnAttacks(piece.getTeamColor(), square);
+        };
+    }
+
+    /**
+     * Recomputes the attacks of every bishop, rook and queen with a line of sight to square
+     */
+    private void refreshSliders(int square) {
+        long queens = pieceSets[WHITE_QUEEN] | pieceSets[BLACK_QUEEN];
+        long diagonal = queens | pieceSets[WHITE_BISHOP] | pieceSets[BLACK_BISHOP];
+        long straight = queens | pieceSets[WHITE_ROOK] | pieceSets[BLACK_ROOK];
+        long sliders = (Bitboards.bishopAttacks(square, occupied) & diagonal)
+                | (Bitboards.rookAttacks(square, occupied) & straight);
+        sliders &= ~(1L << square);
+        while (sliders != 0) {
+            int from = Long.numberOfTrailingZeros(sliders);
+            sliders &= sliders - 1;
+            ChessPiece slider = squares[from >>> 3][from & 7];
+            long attacks = attacksOf(slider, from);
+            updateAttacks(slider.getTeamColor(), attacksFrom[from], attacks);
+            attacksFrom[from] = attacks;
+        }
+    }
+
+    /**
+     * Moves one piece's contribution to its team's attack map from oldAttacks to newAttacks
+     */
+    private void updateAttacks(ChessGame.TeamColor color, long oldAttacks, long newAttacks) {
+        int base = color.ordinal() << 6;
+        long removed = oldAttacks & ~newAttacks;
+        while (removed != 0) {
+            int square = Long.numberOfTrailingZeros(removed);
+            removed &= removed - 1;
+            if (--attackCounts[base + square] == 0) {
+                attackMaps[color.ordinal()] &= ~(1L << square);
+            }
+        }
+        long added = newAttacks & ~oldAttacks;
+        while (added != 0) {
+            int square = Long.numberOfTrailingZeros(added);
+            added &= added - 1;
+            if (attackCounts[base + square]++ == 0) {
+                attackMaps[color.ordinal()] |= 1L << square;
+            }
+        }
+    }
+
+    private void ensureIndexed() {
+        if (indexedSquares != squares) {
+            clearIndex();
+            indexPieces();
+        }
+    }
+
+    private void clearIndex() {
+        if (pieceSets == null) {
+            pieceSets = new long[12];
+            colorSets = new long[2];
+            attacksFrom = new long[64];
+            attackCounts = new int[128];
+            attackMaps = new long[2];
+            kingSquares = new int[2];
+        }
+        Arrays.fill(pieceSets, 0L);
+        Arrays.fill(colorSets, 0L);
+        Arrays.fill(attacksFrom, 0L);
+        Arrays.fill(attackCounts, 0);
+        Arrays.fill(attackMaps, 0L);
+        Arrays.fill(kingSquares, -1);
+        occupied = 0L;
+        zobristKey = 0L;
+        pawnKey = 0L;
+        squareScore = 0;
+        indexedSquares = squares;
+    }
+
+    /**
+     * Builds the bitboards and attack maps from the squares array of a cleared index
+     */
+    private void indexPieces() {
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = squares[square >>> 3][square & 7];
+            if (piece != null) {
+                long mask = 1L << square;
+                int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+                pieceSets[index] |= mask;
+                zobristKey ^= Zobrist.piece(index, square);
+                if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                    pawnKey ^= Zobrist.piece(index, square);
+                }
+                if (squareValues != null) {
+                    squareScore += squareValues[index * 64 + square];
+                }
+                colorSets[piece.getTeamColor().ordinal()] |= mask;
+                occupied |= mask;
+            }
         }
-        
-        //Black piece set-up
-        squares[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        squares[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        squares[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        squares[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        
-        //Pawns for black
-        for (int i = 0; i < 8; i++) {
-            squares[6][i] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        updateKingSquare(ChessGame.TeamColor.WHITE);
+        updateKingSquare(ChessGame.TeamColor.BLACK);
+        long pieces = occupied;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = squares[square >>> 3][square & 7];
+            long attacks = attacksOf(piece, square);
+            updateAttacks(piece.getTeamColor(), 0L, attacks);
+            attacksFrom[square] = attacks;
         }
     }
 
@@ -87,11 +448,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        //Different keys always mean different boards, equal keys still need confirming
+        return zobristKey() == that.zobristKey() && Arrays.equals(pieceSets, that.pieceSets);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey());
     }
 }
@@ -1,8 +1,12 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -15,6 +19,43 @@ public class ChessGame {
     private TeamColor currentTeam;
     private boolean gameOver = false;
 
+    //Zobrist keys of the positions before each move played, oldest first, and the
+    //number of moves since the last capture or pawn move. These are saved with the
+    //game so repetitions carry over, so makeMove trims the array to just the keys
+    //since that move; doMove leaves room to grow, as searches aren't saved.
+    private long[] positionKeys = new long[0];
+    private int positionCount;
+    private int halfmoveClock;
+
+    //Undo stack for doMove/undoMove. Each record is the packed move (see MoveList)
+    //with the team that moved in bit 15 and the halfmove clock before it from bit 16
+    private transient int[] undoMoves = new int[32];
+    private transient ChessPiece[] undoCaptures = new ChessPiece[32];
+    private transient int undoSize;
+
+    //Every legal move of each team, memoized for the board and Zobrist key they
+    //were generated for. Moves are grouped by from square, and the index array
+    //holds where each square's moves start (entry 64 is the end of the list).
+    private transient MoveList[] legalMoveCache;
+    private transient int[][] legalMoveIndex;
+    private transient long[] legalMoveKeys;
+    private transient ChessBoard[] legalMoveBoards;
+
+    //Gains of each capture in a staticExchange sequence, reused between calls
+    private transient int[] exchangeGains;
+
+    private static final TeamColor[] TEAMS = TeamColor.values();
+    /**
+     * Moves by either team without a capture or pawn move that draw the game
+     */
+    public static final int FIFTY_MOVE_PLIES = 100;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    //Piece values in centipawns for staticExchange, indexed by PieceType ordinal. The
+    //king's only counts when it takes a defended piece, which makes that move lose.
+    private static final int[] EXCHANGE_VALUES = {20000, 900, 330, 320, 500, 100};
+    //PieceType ordinals from the least valuable attacker to the most
+    private static final int[] ATTACKER_ORDER = {5, 3, 2, 4, 1, 0};
+
 
     public boolean isGameOver(){
         return gameOver;
@@ -30,12 +71,33 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(board, chessGame.board) && currentTeam == chessGame.currentTeam;
+        return currentTeam == chessGame.currentTeam && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, currentTeam);
+        return Long.hashCode(zobristKey());
+    }
+
+    /**
+     * Gets the 64-bit Zobrist key of the position, covering the piece placement
+     * and which team is to move
+     *
+     * @return the position's Zobrist key
+     */
+    public long zobristKey() {
+        return zobristKey(board, currentTeam);
+    }
+
+    /**
+     * Gets the Zobrist key a game would have with the given board and team to
+     * move, from the key the board keeps up to date
+     *
+     * @return the position's Zobrist key
+     */
+    public static long zobristKey(ChessBoard board, TeamColor teamToMove) {
+        long key = board.zobristKey();
+        return teamToMove == TeamColor.BLACK ? key ^ Zobrist.sideToMove() : key;
     }
 
     public ChessGame() {
@@ -44,6 +106,21 @@ public class ChessGame {
         this.currentTeam = TeamColor.WHITE;
     }
 
+    /**
+     * Creates a game in the same position as another game, on its own board, so
+     * one can be searched with doMove/undoMove while the other is in use
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.currentTeam = other.currentTeam;
+        this.gameOver = other.gameOver;
+        if (other.positionKeys != null) {
+            this.positionKeys = Arrays.copyOf(other.positionKeys, Math.max(16, other.positionCount));
+            this.positionCount = other.positionCount;
+            this.halfmoveClock = other.halfmoveClock;
+        }
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -58,6 +135,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTeam = team;
+        invalidateMoveCache();
     }
 
     /**
@@ -68,6 +146,20 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * The state of a game from one team's point of view
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        //Drawn because the position has now stood three times with the same team to move
+        REPETITION,
+        //Drawn because neither team has captured or moved a pawn in the last fifty moves each
+        FIFTY_MOVE_RULE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -81,20 +173,181 @@ public class ChessGame {
         if (playerPiece == null) {
             return null;
         }
-        
-        //Get all possible moves for the piece (including moves that might leave king in check)
-        Collection<ChessMove> possibleMoves = playerPiece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-        
-        //Filter out moves that would leave the king in check
+
         TeamColor pieceColor = playerPiece.getTeamColor();
-        for (ChessMove move : possibleMoves) {
-            if (!wouldLeaveInCheck(move, pieceColor)) {
-                validMoves.add(move);
+        MoveList legal = cachedLegalMoves(pieceColor);
+        int[] index = legalMoveIndex[pieceColor.ordinal()];
+        int square = Bitboards.square(startPosition);
+        Collection<ChessMove> validMoves = new ArrayList<>(index[square + 1] - index[square]);
+        for (int i = index[square]; i < index[square + 1]; i++) {
+            validMoves.add(MoveList.toChessMove(legal.get(i)));
+        }
+        return validMoves;
+    }
+
+    /**
+     * Adds the valid moves of the piece at startPosition to a reusable list of
+     * packed moves, the allocation-free form of {@link #validMoves(ChessPosition)}
+     *
+     * @param startPosition the piece to get valid moves for
+     * @param moves list the moves are appended to, nothing is added for an empty square
+     */
+    public void validMoves(ChessPosition startPosition, MoveList moves) {
+        ChessPiece playerPiece = board.getPiece(startPosition);
+        if (playerPiece == null) {
+            return;
+        }
+        TeamColor pieceColor = playerPiece.getTeamColor();
+        MoveList legal = cachedLegalMoves(pieceColor);
+        int[] index = legalMoveIndex[pieceColor.ordinal()];
+        int square = Bitboards.square(startPosition);
+        for (int i = index[square]; i < index[square + 1]; i++) {
+            moves.add(legal.get(i));
+        }
+    }
+
+    /**
+     * Adds every valid move of the team whose turn it is to a reusable list of
+     * packed moves. Unlike the other move queries this always generates afresh,
+     * so it's the one to use from inside a doMove/undoMove search.
+     *
+     * @param moves list the moves are appended to
+     */
+    public void legalMoves(MoveList moves) {
+        addLegalMoves(currentTeam, moves);
+    }
+
+    /**
+     * Streams the valid moves of the team whose turn it is. Moves are generated
+     * piece by piece as the stream is consumed, so {@code findAny}, {@code limit}
+     * and the like stop generating once they have their answer. The game must
+     * not change until the stream is done with.
+     *
+     * @return lazy stream of the team's valid moves
+     */
+    public Stream<ChessMove> legalMoveStream() {
+        return toChessMoves(packedMoveStream(currentTeam, -1L, -1L));
+    }
+
+    /**
+     * Streams the valid moves of the piece at a location lazily, like
+     * {@link #legalMoveStream()}
+     *
+     * @param startPosition the piece to get valid moves for
+     * @return lazy stream of the piece's valid moves, empty if no piece is at startPosition
+     */
+    public Stream<ChessMove> legalMoveStream(ChessPosition startPosition) {
+        ChessPiece piece = board.getPiece(startPosition);
+        if (piece == null) {
+            return Stream.empty();
+        }
+        long from = 1L << Bitboards.square(startPosition);
+        return toChessMoves(packedMoveStream(piece.getTeamColor(), from, -1L));
+    }
+
+    /**
+     * Streams the valid captures of the team whose turn it is lazily, like
+     * {@link #legalMoveStream()}
+     *
+     * @return lazy stream of the team's valid moves that take a piece
+     */
+    public Stream<ChessMove> legalCaptureStream() {
+        TeamColor opponent = currentTeam == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return toChessMoves(packedMoveStream(currentTeam, -1L, board.pieces(opponent)));
+    }
+
+    /**
+     * Streams valid moves packed as described in {@link MoveList}, generated
+     * lazily like {@link #legalMoveStream()}. Moves come in order of from square,
+     * and a pawn's promotions are produced one at a time.
+     *
+     * @param teamColor   team whose moves to stream
+     * @param fromSquares bitboard of the squares to take moves from, -1 for all
+     * @param toSquares   bitboard of the squares moves may land on, -1 for all
+     * @return lazy stream of packed moves
+     */
+    public IntStream packedMoveStream(TeamColor teamColor, long fromSquares, long toSquares) {
+        return StreamSupport.intStream(new LegalMoveSpliterator(this, teamColor, fromSquares, toSquares), false);
+    }
+
+    private static Stream<ChessMove> toChessMoves(IntStream moves) {
+        return moves.mapToObj(MoveList::toChessMove);
+    }
+
+    private void addLegalMoves(TeamColor teamColor, MoveList moves) {
+        MoveGenerator generator = new MoveGenerator(board, teamColor);
+        if (generator.isExact()) {
+            generator.addAllMoves(moves);
+            return;
+        }
+
+        //Get all possible moves (including moves that might leave king in check)
+        int first = moves.size();
+        long pieces = board.pieces(teamColor);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            board.getPiece(square).pieceMoves(board, ChessPosition.of(square), moves);
+        }
+
+        //Filter out moves that would leave the king in check
+        int kept = first;
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            doMove(move);
+            boolean checked = isInCheck(teamColor);
+            undoMove();
+            if (!checked) {
+                moves.set(kept++, move);
             }
         }
+        moves.truncate(kept);
+    }
 
-        return validMoves;
+    /**
+     * Gets every legal move of a team in the current position, generating them
+     * only when the board has changed since the last call
+     */
+    private MoveList cachedLegalMoves(TeamColor teamColor) {
+        if (legalMoveCache == null) {
+            legalMoveCache = new MoveList[] {new MoveList(), new MoveList()};
+            legalMoveIndex = new int[2][65];
+            legalMoveKeys = new long[2];
+            legalMoveBoards = new ChessBoard[2];
+        }
+        int team = teamColor.ordinal();
+        MoveList legal = legalMoveCache[team];
+        if (isMoveCacheFresh(teamColor)) {
+            return legal;
+        }
+
+        long key = board.zobristKey();
+        legal.clear();
+        addLegalMoves(teamColor, legal);
+        int[] index = legalMoveIndex[team];
+        int next = 0;
+        for (int square = 0; square <= 64; square++) {
+            while (next < legal.size() && MoveList.from(legal.get(next)) < square) {
+                next++;
+            }
+            index[square] = next;
+        }
+        legalMoveBoards[team] = board;
+        legalMoveKeys[team] = key;
+        return legal;
+    }
+
+    private boolean isMoveCacheFresh(TeamColor teamColor) {
+        int team = teamColor.ordinal();
+        return legalMoveBoards != null && legalMoveBoards[team] == board
+                && legalMoveKeys[team] == board.zobristKey();
+    }
+
+    private void invalidateMoveCache() {
+        if (legalMoveBoards != null) {
+            legalMoveBoards[0] = null;
+            legalMoveBoards[1] = null;
+        }
     }
 
     /**
@@ -117,86 +370,220 @@ public class ChessGame {
         if (piece.getTeamColor() != currentTeam) {
             throw new InvalidMoveException("Not your turn");
         }
-        Collection<ChessMove> valid = validMoves(startPosition);
-        if (!valid.contains(move)) {
+        if (!isLegal(move, currentTeam)) {
             throw new InvalidMoveException("Invalid move");
         }
 
-        //Execute the move
-        ChessPiece pieceToPlace = piece;
+        //Execute the move, makeMove can't be taken back so drop its undo record
+        doMove(move);
+        undoSize--;
+        undoCaptures[undoSize] = null;
+        //No position before a capture or pawn move can come back
+        if (halfmoveClock == 0) {
+            positionCount = 0;
+        }
+        if (positionKeys.length != positionCount) {
+            positionKeys = Arrays.copyOf(positionKeys, positionCount);
+        }
+        invalidateMoveCache();
+    }
 
-        //Pawn promotion
-        if (move.getPromotionPiece() != null) {
-            pieceToPlace = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
+    private boolean isLegal(ChessMove move, TeamColor teamColor) {
+        ChessPosition end = move.getEndPosition();
+        if (end.getRow() < 1 || end.getRow() > 8 || end.getColumn() < 1 || end.getColumn() > 8) {
+            return false;
+        }
+        MoveList legal = cachedLegalMoves(teamColor);
+        int[] index = legalMoveIndex[teamColor.ordinal()];
+        int packed = MoveList.encode(move);
+        int from = MoveList.from(packed);
+        for (int i = index[from]; i < index[from + 1]; i++) {
+            if (legal.get(i) == packed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plays a move on the board and hands the turn to the other team, without
+     * checking that the move is valid. The move can be taken back with
+     * {@link #undoMove()}.
+     *
+     * @param move chess move to perform
+     */
+    public void doMove(ChessMove move) {
+        doMove(MoveList.encode(move));
+    }
+
+    /**
+     * Plays a move packed as described in {@link MoveList}, like {@link #doMove(ChessMove)}
+     *
+     * @param move packed move to perform
+     */
+    public void doMove(int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        ChessPiece.PieceType promotion = MoveList.promotion(move);
+        ChessPiece movingPiece = board.getPiece(from);
+        if (undoSize == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoSize * 2);
+            undoCaptures = Arrays.copyOf(undoCaptures, undoSize * 2);
+        }
+        ChessPiece captured = board.getPiece(to);
+        undoMoves[undoSize] = move | currentTeam.ordinal() << 15 | Math.min(halfmoveClock, 0xFFFF) << 16;
+        undoCaptures[undoSize] = captured;
+        undoSize++;
+
+        if (positionKeys == null) {
+            positionKeys = new long[16];
+        } else if (positionCount == positionKeys.length) {
+            positionKeys = Arrays.copyOf(positionKeys, Math.max(16, positionCount * 2));
         }
+        positionKeys[positionCount++] = zobristKey();
+        //Moving from an empty square only clears the target, as doMove doesn't check moves
+        boolean irreversible = captured != null
+                || (movingPiece != null && movingPiece.getPieceType() == ChessPiece.PieceType.PAWN);
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
 
-        board.addPiece(endPosition, pieceToPlace);
-        board.addPiece(startPosition, null);
+        //Pawn promotion
+        ChessPiece pieceToPlace = movingPiece;
+        if (promotion != null && movingPiece != null) {
+            pieceToPlace = ChessPiece.of(movingPiece.getTeamColor(), promotion);
+        }
+        board.addPiece(to, pieceToPlace);
+        board.addPiece(from, null);
 
         //Change turn
-        if (currentTeam == TeamColor.WHITE) {
-            currentTeam = TeamColor.BLACK;
-        } else {
-            currentTeam = TeamColor.WHITE;
+        currentTeam = (currentTeam == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    /**
+     * Takes back the last move played with {@link #doMove(ChessMove)}
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        undoSize--;
+        int record = undoMoves[undoSize];
+        int from = MoveList.from(record);
+        int to = MoveList.to(record);
+        currentTeam = TEAMS[(record >>> 15) & 1];
+        halfmoveClock = record >>> 16;
+        if (positionCount > 0) {
+            positionCount--;
         }
 
+        //Empty when the move was made from an empty square
+        ChessPiece movedPiece = board.getPiece(to);
+        if (MoveList.promotion(record) != null && movedPiece != null) {
+            movedPiece = ChessPiece.of(movedPiece.getTeamColor(), ChessPiece.PieceType.PAWN);
+        }
+        board.addPiece(from, movedPiece);
+        board.addPiece(to, undoCaptures[undoSize]);
+        undoCaptures[undoSize] = null;
+    }
 
+    /**
+     * Works out the material a capture wins or loses once every recapture on its
+     * square has been played, each side capturing with its least valuable
+     * attacker and free to stop when going on would lose more. Nothing is moved
+     * on the board, and the move isn't checked for legality, nor are pins.
+     *
+     * @param move move whose exchange to resolve, usually a capture or promotion
+     * @return the net material in centipawns for the team making the move,
+     * 0 for a quiet move nobody can take back
+     */
+    public int staticExchange(ChessMove move) {
+        return staticExchange(MoveList.encode(move));
     }
 
     /**
-     * Determines if the given team is in check
+     * Resolves the exchange of a move packed as described in {@link MoveList},
+     * like {@link #staticExchange(ChessMove)}
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move packed move whose exchange to resolve
+     * @return the net material in centipawns for the team making the move
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        //Check if king is in danger from enemy pieces
-        ChessPosition kingPosition = null;
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-
-                //Check for what team king is on
-                if (piece != null &&
-                        piece.getTeamColor() == teamColor &&
-                        piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    kingPosition = pos;
+    public int staticExchange(int move) {
+        if (exchangeGains == null) {
+            exchangeGains = new int[33];
+        }
+        int[] gains = exchangeGains;
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        ChessPiece mover = board.getPiece(from);
+        if (mover == null) {
+            return 0;
+        }
+        ChessPiece target = board.getPiece(to);
+        ChessPiece.PieceType promotion = MoveList.promotion(move);
+        int onSquare = EXCHANGE_VALUES[(promotion != null ? promotion : mover.getPieceType()).ordinal()];
+        gains[0] = target == null ? 0 : EXCHANGE_VALUES[target.getPieceType().ordinal()];
+        if (promotion != null) {
+            gains[0] += onSquare - EXCHANGE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        }
+
+        boolean promotionSquare = to < 8 || to >= 56;
+        long occupied = board.occupied() & ~(1L << from);
+        long attackers = board.attackersTo(to, occupied) & occupied;
+        TeamColor side = mover.getTeamColor() == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        int depth = 0;
+        while (true) {
+            long ours = attackers & board.pieces(side);
+            if (ours == 0) {
+                break;
+            }
+            int type = -1;
+            long attacker = 0;
+            for (int candidate : ATTACKER_ORDER) {
+                attacker = ours & board.pieces(side, TYPES[candidate]);
+                if (attacker != 0) {
+                    type = candidate;
                     break;
                 }
             }
-            if (kingPosition != null) {
+            //A king can only take last, when nothing can take it back
+            if (type == ChessPiece.PieceType.KING.ordinal() && (attackers & ~ours) != 0) {
                 break;
             }
+
+            depth++;
+            gains[depth] = onSquare - gains[depth - 1];
+            onSquare = EXCHANGE_VALUES[type];
+            if (type == ChessPiece.PieceType.PAWN.ordinal() && promotionSquare) {
+                int queen = EXCHANGE_VALUES[ChessPiece.PieceType.QUEEN.ordinal()];
+                gains[depth] += queen - onSquare;
+                onSquare = queen;
+            }
+
+            occupied &= ~(attacker & -attacker);
+            attackers = board.attackersTo(to, occupied) & occupied;
+            side = side == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
         }
 
-        //Check if opponent can attack the king position
-        TeamColor opponentColor = (teamColor == TeamColor.BLACK) ? TeamColor.WHITE : TeamColor.BLACK;
-        return canOpponentAttackPosition(opponentColor, kingPosition);
+        //Each side stops short of a capture that would leave it worse off
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
     }
 
     /**
-     * Helper method to check if opponent can attack a position
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
      */
-    private boolean canOpponentAttackPosition(TeamColor opponentColor, ChessPosition targetPosition) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece == null || piece.getTeamColor() != opponentColor) {
-                    continue;
-                }
-
-                Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-                for (ChessMove move : moves) {
-                    if (move.getEndPosition().equals(targetPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    public boolean isInCheck(TeamColor teamColor) {
+        //Check if king is in danger from enemy pieces
+        TeamColor opponentColor = (teamColor == TeamColor.BLACK) ? TeamColor.WHITE : TeamColor.BLACK;
+        int kingSquare = board.kingSquare(teamColor);
+        return kingSquare >= 0 && board.isAttacked(kingSquare, opponentColor);
     }
 
     /**
@@ -206,22 +593,97 @@ public class ChessGame {
      * @return True if the team has at least one valid move
      */
     private boolean hasValidMoves(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = validMoves(position);
-                    if (!moves.isEmpty()) {
-                        return true;
-                    }
-                }
+        if (isMoveCacheFresh(teamColor)) {
+            return !legalMoveCache[teamColor.ordinal()].isEmpty();
+        }
+
+        //Stop at the first legal move instead of generating them all
+        MoveGenerator generator = new MoveGenerator(board, teamColor);
+        if (generator.isExact()) {
+            return generator.hasMoves();
+        }
+        return packedMoveStream(teamColor, -1L, -1L).findAny().isPresent();
+    }
+
+    /**
+     * Works out whether a team is in check, checkmate or stalemate in one pass:
+     * a single check test, then a search for any legal move that stops at the
+     * first one found
+     *
+     * @param teamColor which team to get the status of
+     * @return the team's status
+     */
+    public GameStatus status(TeamColor teamColor) {
+        boolean inCheck = isInCheck(teamColor);
+        if (!hasValidMoves(teamColor)) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (isThreefoldRepetition()) {
+            return GameStatus.REPETITION;
+        }
+        if (halfmoveClock >= FIFTY_MOVE_PLIES) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
+    }
+
+    /**
+     * Determines if the current position, with the same team to move, has
+     * stood twice before since the last capture or pawn move. Only the
+     * positions' Zobrist keys are compared.
+     *
+     * @return True if the position has now stood three times
+     */
+    public boolean isThreefoldRepetition() {
+        long key = zobristKey();
+        int seen = 1;
+        int oldest = Math.max(0, positionCount - halfmoveClock);
+        //Positions with the same team to move are an even number of moves back
+        for (int i = positionCount - 2; i >= oldest; i -= 2) {
+            if (positionKeys[i] == key && ++seen == 3) {
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * Gets the keys of the positions played since the last capture or pawn
+     * move, oldest first and not counting the current one. These are the
+     * positions {@link #isThreefoldRepetition()} compares against.
+     *
+     * @return a copy of the keys
+     */
+    public long[] repeatablePositionKeys() {
+        if (positionKeys == null) {
+            return new long[0];
+        }
+        return Arrays.copyOfRange(positionKeys, Math.max(0, positionCount - halfmoveClock), positionCount);
+    }
+
+    /**
+     * Gets the number of moves, by either team, since the last capture or pawn move
+     *
+     * @return the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the number of moves since the last capture or pawn move, for a
+     * position loaded without the moves that led to it
+     *
+     * @param halfmoveClock the halfmove clock
+     * @throws IllegalArgumentException if the clock is negative
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        if (halfmoveClock < 0) {
+            throw new IllegalArgumentException("Halfmove clock can't be negative");
+        }
+        this.halfmoveClock = halfmoveClock;
+    }
+
     /**
      * Determines if the given team is in checkmate
      *
@@ -252,6 +714,10 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        undoSize = 0;
+        positionCount = 0;
+        halfmoveClock = 0;
+        invalidateMoveCache();
     }
 
     /**
@@ -266,28 +732,9 @@ public class ChessGame {
 
     public boolean wouldLeaveInCheck(ChessMove move, TeamColor teamColor) {
         //Simulate the move and check if it leaves the king in check
-        ChessPosition startPos = move.getStartPosition();
-        ChessPosition endPos = move.getEndPosition();
-        ChessPiece movingPiece = board.getPiece(startPos);
-        ChessPiece capturePiece = board.getPiece(endPos);
-
-        //Pawn promotion
-        ChessPiece pieceToPlace = movingPiece;
-        if (move.getPromotionPiece() != null) {
-            pieceToPlace = new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece());
-        }
-
-        //Check the move
-        board.addPiece(endPos, pieceToPlace);
-        board.addPiece(startPos, null);
-
-        //Check if this leaves the king in check
+        doMove(move);
         boolean checked = isInCheck(teamColor);
-
-        //Undo the move
-        board.addPiece(startPos, movingPiece);
-        board.addPiece(endPos, capturePiece);
-
+        undoMove();
         return checked;
     }
 }
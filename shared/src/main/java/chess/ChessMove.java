@@ -14,6 +14,12 @@ public class ChessMove {
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    //Shared instances indexed by packed move, see MoveList. Filled on first use;
+    //a racing thread at worst builds an equal duplicate.
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * (PIECE_TYPES.length + 1)];
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +27,44 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets a shared move instance, only allocating for positions off the board
+     *
+     * @return the move between the two positions
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!onBoard(startPosition) || !onBoard(endPosition)) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(Bitboards.square(startPosition), Bitboards.square(endPosition), promotionPiece);
+    }
+
+    /**
+     * @return the shared move between two 0-63 square indexes
+     */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        return of(MoveList.encode(from, to, promotionPiece));
+    }
+
+    /**
+     * @return the shared move of a packed move
+     */
+    static ChessMove of(int move) {
+        ChessMove chessMove = MOVES[move];
+        if (chessMove == null) {
+            chessMove = new ChessMove(ChessPosition.of(MoveList.from(move)), ChessPosition.of(MoveList.to(move)),
+                    MoveList.promotion(move));
+            MOVES[move] = chessMove;
+        }
+        return chessMove;
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
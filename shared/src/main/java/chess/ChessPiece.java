@@ -13,11 +13,32 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    //Shared instances, indexed like ChessBoard.pieceIndex
+    private static final ChessPiece[] SHARED = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                SHARED[ChessBoard.pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets a shared piece instance. Pieces are immutable, so there is no need
+     * to allocate a new one per square or per promotion.
+     *
+     * @return the piece of the given team and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor color, PieceType type) {
+        return SHARED[ChessBoard.pieceIndex(color, type)];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -66,186 +87,93 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ChessPiece piece = board.getPiece(myPosition);
-        if (piece.getPieceType() == PieceType.BISHOP){
-            return bishopMoves(board, myPosition);
-        }
-        else if (piece.getPieceType() == PieceType.ROOK){
-            return rookMoves(board, myPosition);
-        }
-        else if(piece.getPieceType() == PieceType.KNIGHT){
-            return knightMoves(board, myPosition);
-        }
-        else if(piece.getPieceType() == PieceType.KING){
-            return kingMoves(board, myPosition);
-        }
-        else if(piece.getPieceType() == PieceType.QUEEN){
-            return queenMoves(board, myPosition);
-        }
-        else if(piece.getPieceType() == PieceType.PAWN){
-            return pawnMoves(board, myPosition);
-        }
-        return List.of();
-
-    }
-
-    /**
-     * Helper method for sliding pieces (bishop, rook, queen)
-     * Adds moves in given directions until blocked
-     */
-    private void addSlidingMoves(ChessBoard board, ChessPosition myPosition,
-                                  Collection<ChessMove> moves, int[][] directions) {
-        for (int[] direction : directions) {
-            int rowDirection = direction[0];
-            int colDirection = direction[1];
-            int currentRow = myPosition.getRow() + rowDirection;
-            int currentCol = myPosition.getColumn() + colDirection;
-
-            while (isValidPosition(currentRow, currentCol)) {
-                ChessPosition targetPosition = new ChessPosition(currentRow, currentCol);
-                ChessPiece targetPiece = board.getPiece(targetPosition);
-
-                if (targetPiece == null) {
-                    moves.add(new ChessMove(myPosition, targetPosition, null));
-                } else {
-                    if (targetPiece.getTeamColor() != this.getTeamColor()) {
-                        moves.add(new ChessMove(myPosition, targetPosition, null));
-                    }
-                    break;
+        int square = Bitboards.square(myPosition);
+        boolean pawn = board.getPiece(square).getPieceType() == PieceType.PAWN;
+        long targets = targets(board, square);
+        Collection<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (pawn && isPromotionSquare(target)) {
+                for (PieceType promotion : PROMOTIONS) {
+                    moves.add(ChessMove.of(square, target, promotion));
                 }
-                currentRow += rowDirection;
-                currentCol += colDirection;
+            } else {
+                moves.add(ChessMove.of(square, target, null));
             }
         }
-    }
-
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-        int[][] bishopDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        addSlidingMoves(board, myPosition, moves, bishopDirections);
         return moves;
     }
 
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-        int[][] rookDirections = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
-        addSlidingMoves(board, myPosition, moves, rookDirections);
-        return moves;
-    }
     /**
-     * Helper method for non-sliding pieces (knight, king)
-     * Adds single-step moves in given directions
+     * Adds the same moves as {@link #pieceMoves(ChessBoard, ChessPosition)} to a
+     * reusable list of packed moves, without allocating
+     *
+     * @param moves list the moves are appended to
      */
-    private void addSingleStepMoves(ChessBoard board, ChessPosition myPosition,
-                                     Collection<ChessMove> moves, int[][] directions) {
-        for (int[] direction : directions) {
-            int targetRow = myPosition.getRow() + direction[0];
-            int targetCol = myPosition.getColumn() + direction[1];
-
-            if (isValidPosition(targetRow, targetCol)) {
-                ChessPosition targetPosition = new ChessPosition(targetRow, targetCol);
-                ChessPiece targetPiece = board.getPiece(targetPosition);
-
-                if (targetPiece == null || targetPiece.getTeamColor() != this.getTeamColor()) {
-                    moves.add(new ChessMove(myPosition, targetPosition, null));
+    public void pieceMoves(ChessBoard board, ChessPosition myPosition, MoveList moves) {
+        int square = Bitboards.square(myPosition);
+        boolean pawn = board.getPiece(square).getPieceType() == PieceType.PAWN;
+        long targets = targets(board, square);
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (pawn && isPromotionSquare(target)) {
+                for (PieceType promotion : PROMOTIONS) {
+                    moves.add(MoveList.encode(square, target, promotion));
                 }
+            } else {
+                moves.add(MoveList.encode(square, target, null));
             }
         }
     }
 
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-        int[][] knightDirections = {
-                {2, 1}, {1, 2}, {-1, 2}, {-2, 1},
-                {1, -2}, {2, -1}, {-1, -2}, {-2, -1}
-        };
-        addSingleStepMoves(board, myPosition, moves, knightDirections);
-        return moves;
-    }
+    //Order promotions are generated in
+    static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.BISHOP, PieceType.ROOK, PieceType.KNIGHT};
 
-    private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-        int[][] kingDirections = {
-                {1, 1}, {-1, -1}, {1, -1}, {-1, 1},
-                {1, 0}, {-1, 0}, {0, 1}, {0, -1}
-        };
-        addSingleStepMoves(board, myPosition, moves, kingDirections);
-        return moves;
+    static boolean isPromotionSquare(int square) {
+        return ((1L << square) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0;
     }
 
-    private Collection<ChessMove> queenMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-        int[][] queenDirections = {
-                {1, 1}, {-1, -1}, {1, -1}, {-1, 1},
-                {1, 0}, {-1, 0}, {0, 1}, {0, -1}
+    /**
+     * Gets the squares the piece on square can move to, not counting moves that
+     * leave the king in danger. The type comes from the board, the team from this piece.
+     *
+     * @return bitboard of target squares
+     */
+    long targets(ChessBoard board, int square) {
+        long occupied = board.occupied();
+        long notOurs = ~board.pieces(pieceColor);
+        return switch (board.getPiece(square).getPieceType()) {
+            case KING -> Bitboards.kingAttacks(square) & notOurs;
+            case QUEEN -> Bitboards.queenAttacks(square, occupied) & notOurs;
+            case BISHOP -> Bitboards.bishopAttacks(square, occupied) & notOurs;
+            case KNIGHT -> Bitboards.knightAttacks(square) & notOurs;
+            case ROOK -> Bitboards.rookAttacks(square, occupied) & notOurs;
+            case PAWN -> pawnTargets(board, square);
         };
-        addSlidingMoves(board, myPosition, moves, queenDirections);
-        return moves;
-    }
-    private void addPromotionMoves(ChessPosition start, ChessPosition end, Collection<ChessMove> moves) {
-        moves.add(new ChessMove(start, end, PieceType.QUEEN));
-        moves.add(new ChessMove(start, end, PieceType.BISHOP));
-        moves.add(new ChessMove(start, end, PieceType.ROOK));
-        moves.add(new ChessMove(start, end, PieceType.KNIGHT));
     }
 
-    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-        int direction = (this.getTeamColor() == ChessGame.TeamColor.WHITE) ? 1 : -1;
-        
-        //Forward move
-        int forwardRow = myPosition.getRow() + direction;
-        int forwardCol = myPosition.getColumn();
-        
-        if (isValidPosition(forwardRow, forwardCol)) {
-            ChessPosition forwardPosition = new ChessPosition(forwardRow, forwardCol);
-            if (board.getPiece(forwardPosition) == null) {
-                if (forwardRow == 8 || forwardRow == 1) {
-                    addPromotionMoves(myPosition, forwardPosition, moves);
-                } else {
-                    moves.add(new ChessMove(myPosition, forwardPosition, null));
-                }
-                
-                //Double move from starting position
-                boolean isStartingPosition = (this.getTeamColor() == ChessGame.TeamColor.WHITE && myPosition.getRow() == 2)
-                        || (this.getTeamColor() == ChessGame.TeamColor.BLACK && myPosition.getRow() == 7);
-                if (isStartingPosition) {
-                    int doubleRow = myPosition.getRow() + (2 * direction);
-                    ChessPosition doublePosition = new ChessPosition(doubleRow, forwardCol);
-                    if (board.getPiece(doublePosition) == null) {
-                        moves.add(new ChessMove(myPosition, doublePosition, null));
-                    }
-                }
-            }
-        }
-        
+    private long pawnTargets(ChessBoard board, int square) {
+        boolean white = pieceColor == ChessGame.TeamColor.WHITE;
+        long empty = ~board.occupied();
+
         //Capture moves
-        int[] captureDirections = {-1, 1};
-        for (int colDirection : captureDirections) {
-            int captureRow = myPosition.getRow() + direction;
-            int captureCol = myPosition.getColumn() + colDirection;
-            
-            if (!isValidPosition(captureRow, captureCol)) {
-                continue;
-            }
-            
-            ChessPosition capturePosition = new ChessPosition(captureRow, captureCol);
-            ChessPiece capturePiece = board.getPiece(capturePosition);
-            
-            if (capturePiece != null && capturePiece.getTeamColor() != this.getTeamColor()) {
-                if (captureRow == 8 || captureRow == 1) {
-                    addPromotionMoves(myPosition, capturePosition, moves);
-                } else {
-                    moves.add(new ChessMove(myPosition, capturePosition, null));
-                }
+        ChessGame.TeamColor enemy = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long targets = Bitboards.pawnAttacks(pieceColor, square) & board.pieces(enemy);
+
+        //Forward move
+        int forward = white ? square + 8 : square - 8;
+        if (forward >= 0 && forward < 64 && (empty & (1L << forward)) != 0) {
+            targets |= 1L << forward;
+
+            //Double move from starting position
+            long startingRank = white ? Bitboards.RANK_2 : Bitboards.RANK_7;
+            int doubleForward = white ? forward + 8 : forward - 8;
+            if ((startingRank & (1L << square)) != 0 && (empty & (1L << doubleForward)) != 0) {
+                targets |= 1L << doubleForward;
             }
         }
-        
-        return moves;
-    }
-
-    //Checks for valid position
-    private boolean isValidPosition(int row, int col) {
-        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+        return targets;
     }
 }
@@ -13,11 +13,41 @@ public class ChessPosition {
     private final int row;
     private final int col;
 
+    //Shared instances of the 64 board squares, indexed by Bitboards.square
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets a shared position instance, only allocating for positions off the board
+     *
+     * @param row 1-based row
+     * @param col 1-based column
+     * @return the position
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[((row - 1) << 3) | (col - 1)];
+    }
+
+    /**
+     * @return the shared position of a 0-63 square index
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
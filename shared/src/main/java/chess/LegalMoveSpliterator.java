@@ -0,0 +1,128 @@
+package chess;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Produces the legal moves of one team as packed moves (see {@link MoveList}),
+ * one at a time. Nothing is generated ahead of what has been asked for: a
+ * piece's targets are only worked out once the moves of the piece before it
+ * have all been taken, so a stream that stops early skips the rest.
+ * <p>
+ * With a single king the targets come from a {@link MoveGenerator}; otherwise
+ * each candidate move is played out on the game to see that it doesn't leave
+ * the team in check. The game mustn't change while moves are being taken.
+ */
+final class LegalMoveSpliterator implements Spliterator.OfInt {
+
+    private final ChessGame game;
+    private final ChessBoard board;
+    private final ChessGame.TeamColor team;
+    //Null when the team doesn't have exactly one king
+    private final MoveGenerator generator;
+    private final long toSquares;
+    //From squares whose moves haven't been started yet
+    private long pieces;
+
+    private int from;
+    private long targets;
+    private boolean pawn;
+    private int promotion;
+    //Candidate moves of the current piece when there is no generator
+    private MoveList candidates;
+    private int candidate;
+
+    /**
+     * @param fromSquares bitboard of the squares to take moves from
+     * @param toSquares   bitboard of the squares moves may land on
+     */
+    LegalMoveSpliterator(ChessGame game, ChessGame.TeamColor team, long fromSquares, long toSquares) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.team = team;
+        MoveGenerator exact = new MoveGenerator(board, team);
+        this.generator = exact.isExact() ? exact : null;
+        this.toSquares = toSquares;
+        this.pieces = board.pieces(team) & fromSquares;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        while (true) {
+            if (generator != null) {
+                if (targets != 0) {
+                    action.accept(nextTarget());
+                    return true;
+                }
+            } else {
+                while (candidates != null && candidate < candidates.size()) {
+                    int move = candidates.get(candidate++);
+                    if ((toSquares & (1L << MoveList.to(move))) != 0 && !leavesInCheck(move)) {
+                        action.accept(move);
+                        return true;
+                    }
+                }
+            }
+            if (pieces == 0) {
+                return false;
+            }
+            from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            startPiece();
+        }
+    }
+
+    private void startPiece() {
+        if (generator != null) {
+            targets = generator.targets(from) & toSquares;
+            pawn = board.getPiece(from).getPieceType() == ChessPiece.PieceType.PAWN;
+            promotion = 0;
+            return;
+        }
+        if (candidates == null) {
+            candidates = new MoveList(64);
+        }
+        candidates.clear();
+        candidate = 0;
+        board.getPiece(from).pieceMoves(board, ChessPosition.of(from), candidates);
+    }
+
+    /**
+     * Takes the next move to the lowest remaining target, one promotion at a time
+     */
+    private int nextTarget() {
+        int to = Long.numberOfTrailingZeros(targets);
+        if (pawn && ChessPiece.isPromotionSquare(to)) {
+            int move = MoveList.encode(from, to, ChessPiece.PROMOTIONS[promotion++]);
+            if (promotion == ChessPiece.PROMOTIONS.length) {
+                promotion = 0;
+                targets &= targets - 1;
+            }
+            return move;
+        }
+        targets &= targets - 1;
+        return MoveList.encode(from, to, null);
+    }
+
+    private boolean leavesInCheck(int move) {
+        game.doMove(move);
+        boolean checked = game.isInCheck(team);
+        game.undoMove();
+        return checked;
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+}
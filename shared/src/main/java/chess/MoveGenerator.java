@@ -0,0 +1,187 @@
+package chess;
+
+/**
+ * Generates strictly legal moves for one team on a board.
+ * <p>
+ * The position is analysed once when the generator is built: the pieces
+ * giving check, the squares that resolve a single check, and every absolutely
+ * pinned piece together with the line it may still move along. Moves are then
+ * produced by masking each piece's targets, without playing them out.
+ * <p>
+ * This only works when the team has exactly one king. {@link #isExact()} is
+ * false otherwise, and callers fall back to simulating each move.
+ */
+final class MoveGenerator {
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor us;
+    private final ChessGame.TeamColor them;
+    private final boolean exact;
+    private final int king;
+    private final long ours;
+    private final long occupied;
+    private long checkers;
+    //Squares a non-king move has to land on, everything when not in check
+    private long checkMask;
+    private long pinned;
+    //Line each pinned piece is confined to, only valid for squares in pinned
+    private final long[] pinRays = new long[64];
+
+    MoveGenerator(ChessBoard board, ChessGame.TeamColor us) {
+        this.board = board;
+        this.us = us;
+        this.them = (us == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.exact = Long.bitCount(board.pieces(us, ChessPiece.PieceType.KING)) == 1;
+        this.king = board.kingSquare(us);
+        this.ours = board.pieces(us);
+        this.occupied = board.occupied();
+        if (exact) {
+            analyse();
+        }
+    }
+
+    /**
+     * @return true if the moves this generator produces are exactly the legal moves
+     */
+    boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return true if the team to move is in check
+     */
+    boolean inCheck() {
+        return checkers != 0;
+    }
+
+    private void analyse() {
+        checkers = attackersTo(king, occupied);
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        } else {
+            checkMask = 0L;
+        }
+
+        //Enemy sliders that would hit the king if our own pieces were not in the way
+        long theirs = board.pieces(them);
+        long queens = board.pieces(them, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, theirs)
+                & (board.pieces(them, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(king, theirs)
+                & (board.pieces(them, ChessPiece.PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long between = Bitboards.between(king, sniper);
+            long blockers = between & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & ours) != 0) {
+                pinned |= blockers;
+                pinRays[Long.numberOfTrailingZeros(blockers)] = between | (1L << sniper);
+            }
+        }
+    }
+
+    /**
+     * @return every enemy piece attacking square, given an occupancy
+     */
+    private long attackersTo(int square, long occupancy) {
+        long queens = board.pieces(them, ChessPiece.PieceType.QUEEN);
+        return (Bitboards.knightAttacks(square) & board.pieces(them, ChessPiece.PieceType.KNIGHT))
+                | (Bitboards.pawnAttacks(us, square) & board.pieces(them, ChessPiece.PieceType.PAWN))
+                | (Bitboards.kingAttacks(square) & board.pieces(them, ChessPiece.PieceType.KING))
+                | (Bitboards.bishopAttacks(square, occupancy)
+                & (board.pieces(them, ChessPiece.PieceType.BISHOP) | queens))
+                | (Bitboards.rookAttacks(square, occupancy)
+                & (board.pieces(them, ChessPiece.PieceType.ROOK) | queens));
+    }
+
+    /**
+     * Gets the legal destination squares of the piece on from. Pawn moves to
+     * the last rank stand for all four promotions.
+     *
+     * @return bitboard of legal target squares
+     */
+    long targets(int from) {
+        ChessPiece piece = board.getPiece(from);
+        if (from == king) {
+            return kingTargets();
+        }
+        if (checkers != 0 && checkMask == 0) {
+            return 0L;
+        }
+        long targets = piece.targets(board, from) & checkMask;
+        if ((pinned & (1L << from)) != 0) {
+            targets &= pinRays[from];
+        }
+        return targets;
+    }
+
+    private long kingTargets() {
+        long targets = Bitboards.kingAttacks(king) & ~ours;
+        if (checkers == 0) {
+            //No slider reaches through the king, so the attack map is exact
+            return targets & ~board.attacks(them);
+        }
+        long legal = 0L;
+        long withoutKing = occupied & ~(1L << king);
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (attackersTo(target, withoutKing) == 0) {
+                legal |= 1L << target;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Adds every legal move of the piece on from to a list of packed moves
+     */
+    void addMoves(int from, MoveList moves) {
+        long targets = targets(from);
+        boolean pawn = board.getPiece(from).getPieceType() == ChessPiece.PieceType.PAWN;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (pawn && ChessPiece.isPromotionSquare(to)) {
+                for (ChessPiece.PieceType promotion : ChessPiece.PROMOTIONS) {
+                    moves.add(MoveList.encode(from, to, promotion));
+                }
+            } else {
+                moves.add(MoveList.encode(from, to, null));
+            }
+        }
+    }
+
+    /**
+     * Adds every legal move of the team to a list of packed moves
+     */
+    void addAllMoves(MoveList moves) {
+        long pieces = ours;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            addMoves(from, moves);
+        }
+    }
+
+    /**
+     * @return true if the team has at least one legal move, stopping at the first one found
+     */
+    boolean hasMoves() {
+        if (kingTargets() != 0) {
+            return true;
+        }
+        long pieces = ours & ~(1L << king);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (targets(from) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
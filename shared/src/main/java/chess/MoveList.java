@@ -0,0 +1,129 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of moves packed into ints, for callers that generate
+ * moves in bulk and don't want a {@link ChessMove} object per move.
+ * <p>
+ * A packed move holds the from square in bits 0-5, the to square in bits
+ * 6-11 and the promotion in bits 12-14 (piece type ordinal + 1, or 0 for
+ * none), with squares numbered as in {@link Bitboards}. Use {@link #toChessMove}
+ * and {@link #encode(ChessMove)} to convert to and from the object form.
+ */
+public final class MoveList {
+
+    /**
+     * More than the number of legal moves in any reachable chess position
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        return from | to << 6 | (promotion == null ? 0 : promotion.ordinal() + 1) << 12;
+    }
+
+    /**
+     * Packs a move whose positions are on the board
+     */
+    public static int encode(ChessMove move) {
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece type, or null if the move isn't a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 7;
+        return promotion == 0 ? null : PIECE_TYPES[promotion - 1];
+    }
+
+    /**
+     * @return the shared {@link ChessMove} instance of a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(move);
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * Drops every move from index newSize on
+     */
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Empties the list, keeping its storage for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(toChessMove(moves[i]));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,48 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * A position's key is the XOR of one key per piece on its square, plus
+ * {@link #sideToMove()} when black is to move. The keys come from a fixed
+ * seed so that a key stays the same between runs and can be stored.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x2D358DCCAA6C78A5L;
+
+    //Indexed by ChessBoard.pieceIndex * 64 + square
+    private static final long[] PIECE_KEYS = new long[12 * 64];
+    private static final long SIDE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int pieceIndex, int square) {
+        return PIECE_KEYS[(pieceIndex << 6) | square];
+    }
+
+    /**
+     * @return the key of a piece standing on a 0-63 square
+     */
+    public static long piece(ChessPiece piece, int square) {
+        return piece(ChessBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()), square);
+    }
+
+    /**
+     * @return the key XORed in when black is to move
+     */
+    public static long sideToMove() {
+        return SIDE_KEY;
+    }
+}
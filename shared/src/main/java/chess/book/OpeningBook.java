@@ -0,0 +1,150 @@
+package chess.book;
+
+import chess.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book, memory-mapped from a file written by
+ * {@link OpeningBookBuilder}.
+ * <p>
+ * The file is an 8 byte header ({@link #MAGIC}) followed by 16 byte entries,
+ * big-endian, laid out like Polyglot's: the position's Zobrist key (8 bytes,
+ * see {@link ChessGame#zobristKey()}), the move packed as in {@link MoveList}
+ * (2 bytes), its weight (2 bytes, unsigned) and 4 reserved bytes. Entries are
+ * sorted by key as an unsigned number, then by weight from highest, so the
+ * moves of a position are found with a binary search over the mapped file
+ * and nothing is read onto the heap.
+ * <p>
+ * The keys are this project's Zobrist keys rather than Polyglot's, so books
+ * have to be built with {@link OpeningBookBuilder}.
+ */
+public final class OpeningBook {
+
+    public static final long MAGIC = 0x4348455353424B31L;
+    static final int HEADER_BYTES = 8;
+    static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    /**
+     * A book move and how often it was played, relative to the other moves of its position
+     */
+    public record BookMove(ChessMove move, int weight) {
+    }
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file into memory
+     *
+     * @throws IOException if the file can't be read or isn't a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || (length - HEADER_BYTES) % ENTRY_BYTES != 0
+                    || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.BIG_ENDIAN);
+            if (file.getLong(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            return new OpeningBook(file.slice(HEADER_BYTES, (int) length - HEADER_BYTES)
+                    .order(ByteOrder.BIG_ENDIAN));
+        }
+    }
+
+    /**
+     * @return number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the book moves for the team whose turn it is in a game
+     *
+     * @return the book moves, most played first, or an empty list if the position isn't in the book
+     */
+    public List<BookMove> moves(ChessGame game) {
+        return moves(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Gets the book moves of a team on a board
+     *
+     * @return the book moves, most played first, or an empty list if the position isn't in the book
+     */
+    public List<BookMove> moves(ChessBoard board, ChessGame.TeamColor team) {
+        long key = ChessGame.zobristKey(board, team);
+        List<BookMove> moves = new ArrayList<>();
+        for (int i = firstEntry(key); i < size && keyAt(i) == key; i++) {
+            int move = entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF;
+            //Different positions can share a key, so skip moves that can't be this team's
+            ChessPiece piece = board.getPiece(MoveList.from(move));
+            if (piece != null && piece.getTeamColor() == team) {
+                moves.add(new BookMove(MoveList.toChessMove(move), entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks a book move at random, in proportion to the weights
+     *
+     * @return the chosen move, or null if the position isn't in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = moves(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return moves.isEmpty() ? null : moves.get(0).move();
+        }
+        int choice = random.nextInt(total);
+        for (BookMove move : moves) {
+            choice -= move.weight();
+            if (choice < 0) {
+                return move.move();
+            }
+        }
+        return moves.get(moves.size() - 1).move();
+    }
+
+    /**
+     * @return index of the first entry whose key is not below key
+     */
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+}
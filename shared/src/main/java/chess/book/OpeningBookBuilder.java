@@ -0,0 +1,197 @@
+package chess.book;
+
+import chess.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link OpeningBook} file from games, counting how often each move
+ * was played from each position over the first plies of every game.
+ * <p>
+ * It can also be run from the command line on a text file of games, one per
+ * line, with moves written in coordinate notation such as {@code e2e4} or
+ * {@code e7e8q}.
+ */
+public final class OpeningBookBuilder {
+
+    /**
+     * Plies recorded from each game by default, the first ten moves of each team
+     */
+    public static final int DEFAULT_PLIES = 20;
+
+    private final int maxPlies;
+    //Times each packed move was played, by position key
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+    private int games;
+    private int rejectedGames;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_PLIES);
+    }
+
+    /**
+     * @param maxPlies number of plies recorded from the start of each game
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        if (maxPlies < 1) {
+            throw new IllegalArgumentException("A book needs at least one ply per game");
+        }
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Records the opening of a game played from the starting position. A game
+     * with an invalid move is only recorded up to that move.
+     *
+     * @param moves the game's moves in order
+     * @return this builder
+     */
+    public OpeningBookBuilder addGame(Iterable<ChessMove> moves) {
+        ChessGame game = new ChessGame();
+        int ply = 0;
+        games++;
+        for (ChessMove move : moves) {
+            if (ply++ == maxPlies) {
+                break;
+            }
+            long key = game.zobristKey();
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException e) {
+                rejectedGames++;
+                break;
+            }
+            counts.computeIfAbsent(key, k -> new HashMap<>()).merge(MoveList.encode(move), 1, Integer::sum);
+        }
+        return this;
+    }
+
+    /**
+     * Records the opening of every game in a stream
+     *
+     * @return this builder
+     */
+    public OpeningBookBuilder addGames(Stream<? extends Iterable<ChessMove>> games) {
+        games.forEachOrdered(this::addGame);
+        return this;
+    }
+
+    /**
+     * @return number of games added, including rejected ones
+     */
+    public int games() {
+        return games;
+    }
+
+    /**
+     * @return number of games that had an invalid move
+     */
+    public int rejectedGames() {
+        return rejectedGames;
+    }
+
+    /**
+     * Writes the book, leaving out moves played fewer than minCount times
+     *
+     * @return number of entries written
+     */
+    public int write(Path path, int minCount) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                if (move.getValue() >= minCount) {
+                    entries.add(new long[] {position.getKey(), move.getKey(), move.getValue()});
+                }
+            }
+        }
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(OpeningBook.MAGIC);
+            long scale = 1;
+            for (int i = 0; i < entries.size(); i++) {
+                long[] entry = entries.get(i);
+                //Weights are 16 bits, so scale each position's counts down when its top one doesn't fit
+                if (i == 0 || entries.get(i - 1)[0] != entry[0]) {
+                    scale = Math.max(1, (entry[2] + 0xFFFE) / 0xFFFF);
+                }
+                out.writeLong(entry[0]);
+                out.writeShort((int) entry[1]);
+                out.writeShort((int) Math.max(1, entry[2] / scale));
+                out.writeInt(0);
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Reads a move in coordinate notation, the from and to squares followed by
+     * the promotion piece if there is one, e.g. {@code g1f3} or {@code a7a8q}
+     *
+     * @throws IllegalArgumentException if the text isn't a move
+     */
+    public static ChessMove parseMove(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        ChessPosition from = parseSquare(text, 0);
+        ChessPosition to = parseSquare(text, 2);
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            promotion = switch (text.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Not a move: " + text);
+            };
+        }
+        return ChessMove.of(from, to, promotion);
+    }
+
+    private static ChessPosition parseSquare(String text, int index) {
+        int col = text.charAt(index) - 'a' + 1;
+        int row = text.charAt(index + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        return ChessPosition.of(row, col);
+    }
+
+    private static List<ChessMove> parseGame(String line) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (String token : line.trim().split("\\s+")) {
+            if (!token.isEmpty()) {
+                moves.add(parseMove(token));
+            }
+        }
+        return moves;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("usage: OpeningBookBuilder <games.txt> <book.bin> [plies] [min count]");
+            System.exit(2);
+            return;
+        }
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+        int minCount = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        try (Stream<String> lines = Files.lines(Path.of(args[0]))) {
+            builder.addGames(lines.filter(line -> !line.isBlank()).map(OpeningBookBuilder::parseGame));
+        }
+        int entries = builder.write(Path.of(args[1]), minCount);
+        System.out.printf("%d games (%d with invalid moves), %d book entries%n", builder.games(),
+                builder.rejectedGames(), entries);
+    }
+}
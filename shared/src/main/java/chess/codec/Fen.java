@@ -0,0 +1,231 @@
+package chess.codec;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Only the piece placement, the team to move and the halfmove clock mean
+ * anything here, as games have no castling or en passant and don't count full
+ * moves. Written FEN has all six fields, with {@code - -} for castling and en
+ * passant and 1 for the full move number. When reading, those three fields
+ * are ignored and a missing halfmove clock is 0. Parsing into an existing
+ * board or game and appending to a {@link StringBuilder} allocate nothing.
+ */
+public final class Fen {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    //FEN letter of each piece type by PieceType ordinal, in white's case
+    private static final char[] LETTERS = {'K', 'Q', 'B', 'N', 'R', 'P'};
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @throws IllegalArgumentException if the placement, team or halfmove clock can't be read
+     */
+    public static ChessGame parseGame(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        parse(fen, game);
+        return game;
+    }
+
+    /**
+     * Sets a game to the position of a FEN string. Its undo history is dropped.
+     * Nothing is changed if the string can't be read.
+     *
+     * @throws IllegalArgumentException if the placement, team or halfmove clock can't be read
+     */
+    public static void parse(CharSequence fen, ChessGame game) {
+        int end = placementEnd(fen);
+        ChessGame.TeamColor team = parseTeam(fen, end);
+        int clock = parseClock(fen, end);
+        parse(fen, game.getBoard());
+        //Drops the undo history and cached moves of the old position
+        game.setBoard(game.getBoard());
+        game.setTeamTurn(team);
+        game.setHalfmoveClock(clock);
+    }
+
+    /**
+     * Sets a board to the piece placement of a FEN string, the first field
+     * being all that's read. Nothing is changed if the placement can't be read.
+     *
+     * @throws IllegalArgumentException if the placement can't be read
+     */
+    public static void parse(CharSequence fen, ChessBoard board) {
+        int start = skipSpaces(fen, 0);
+        int end = placementEnd(fen);
+        //Checked in full before the board is touched
+        placement(fen, start, end, null);
+        placement(fen, start, end, board);
+    }
+
+    /**
+     * @return the game's position as FEN
+     */
+    public static String toFen(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        append(game, fen);
+        return fen.toString();
+    }
+
+    /**
+     * Appends a game's position as FEN
+     */
+    public static void append(ChessGame game, StringBuilder out) {
+        append(game.getBoard(), out);
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b")
+                .append(" - - ").append(game.getHalfmoveClock()).append(" 1");
+    }
+
+    /**
+     * Appends the piece placement field of a board
+     */
+    public static void append(ChessBoard board, StringBuilder out) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.getPiece(row * 8 + col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = LETTERS[piece.getPieceType().ordinal()];
+                out.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+    }
+
+    /**
+     * Reads the placement between start and end, only checking it when board is null
+     */
+    private static void placement(CharSequence fen, int start, int end, ChessBoard board) {
+        int row = 7;
+        int col = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw new IllegalArgumentException("Rank " + (row + 1) + " doesn't have 8 squares in " + fen);
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                if (col + (c - '0') > 8) {
+                    throw new IllegalArgumentException("Rank " + (row + 1) + " is too long in " + fen);
+                }
+                for (int n = c - '0'; n > 0; n--) {
+                    set(board, row * 8 + col++, null);
+                }
+            } else {
+                int type = type(c);
+                if (type < 0) {
+                    throw new IllegalArgumentException("Unknown piece '" + c + "' in " + fen);
+                }
+                if (col >= 8) {
+                    throw new IllegalArgumentException("Rank " + (row + 1) + " is too long in " + fen);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                set(board, row * 8 + col++, ChessPiece.of(color, TYPES[type]));
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw new IllegalArgumentException("Expected 8 ranks of 8 squares in " + fen);
+        }
+    }
+
+    private static void set(ChessBoard board, int square, ChessPiece piece) {
+        if (board != null && board.getPiece(square) != piece) {
+            board.addPiece(square, piece);
+        }
+    }
+
+    /**
+     * @return the PieceType ordinal of a FEN letter in either case, or -1
+     */
+    private static int type(char c) {
+        char upper = Character.toUpperCase(c);
+        for (int type = 0; type < LETTERS.length; type++) {
+            if (LETTERS[type] == upper) {
+                return type;
+            }
+        }
+        return -1;
+    }
+
+    private static ChessGame.TeamColor parseTeam(CharSequence fen, int placementEnd) {
+        int start = skipSpaces(fen, placementEnd);
+        if (start == fen.length()) {
+            return ChessGame.TeamColor.WHITE;
+        }
+        int end = start + 1;
+        if (end < fen.length() && !Character.isWhitespace(fen.charAt(end))) {
+            throw new IllegalArgumentException("Unknown team to move in " + fen);
+        }
+        return switch (fen.charAt(start)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Unknown team to move in " + fen);
+        };
+    }
+
+    /**
+     * Reads the halfmove clock, the fifth field, skipping the team, castling
+     * and en passant fields after the placement
+     */
+    private static int parseClock(CharSequence fen, int placementEnd) {
+        int start = placementEnd;
+        for (int field = 0; field < 3; field++) {
+            start = fieldEnd(fen, skipSpaces(fen, start));
+        }
+        start = skipSpaces(fen, start);
+        int end = fieldEnd(fen, start);
+        int clock = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || clock > (Integer.MAX_VALUE - 9) / 10) {
+                throw new IllegalArgumentException("Bad halfmove clock in " + fen);
+            }
+            clock = clock * 10 + (c - '0');
+        }
+        return clock;
+    }
+
+    private static int placementEnd(CharSequence fen) {
+        return fieldEnd(fen, skipSpaces(fen, 0));
+    }
+
+    private static int fieldEnd(CharSequence fen, int from) {
+        int i = from;
+        while (i < fen.length() && !Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipSpaces(CharSequence fen, int from) {
+        int i = from;
+        while (i < fen.length() && Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,213 @@
+package chess.codec;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes positions in a fixed {@link #BYTES} bytes.
+ * <p>
+ * The first 8 bytes are the occupied squares as a big-endian bitboard (bit 0
+ * is a1, bit 63 h8). Then comes one 4 bit code per occupied square in square
+ * order, two to a byte with the earlier square in the high half: the team
+ * ordinal times 6 plus the {@link ChessPiece.PieceType} ordinal. The last
+ * byte holds the halfmove clock, capped at 255 as the fifty-move rule only
+ * needs to count to 100. The half byte before it holds flags, bit 0 set when
+ * black is to move and bit 1 when the game is over, and the half bytes in
+ * between are zero. The same position always encodes to the same bytes, so
+ * encodings can be compared and hashed as they are.
+ * <p>
+ * That leaves room for {@link #MAX_PIECES} pieces, more than a game can have.
+ * The 32 bytes are handled as four longs, so encoding and decoding allocate
+ * nothing, to and from byte arrays and heap or direct buffers alike.
+ */
+public final class PositionCodec {
+
+    public static final int BYTES = 32;
+    public static final int MAX_PIECES = 45;
+
+    private static final int CODES_PER_WORD = 16;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int GAME_OVER = 2;
+    private static final int MAX_CLOCK = 0xFF;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes a board's pieces, with white to move, at offset
+     *
+     * @throws IllegalArgumentException if the board has more than {@link #MAX_PIECES} pieces
+     */
+    public static void encode(ChessBoard board, byte[] out, int offset) {
+        write(board, 0, out, offset);
+    }
+
+    /**
+     * Writes a game's position, whose turn it is, its halfmove clock and whether it's over at offset
+     *
+     * @throws IllegalArgumentException if the board has more than {@link #MAX_PIECES} pieces
+     */
+    public static void encode(ChessGame game, byte[] out, int offset) {
+        write(game.getBoard(), flags(game), out, offset);
+    }
+
+    /**
+     * Writes a game's position at the buffer's position and moves past it.
+     * The buffer's byte order doesn't matter.
+     *
+     * @throws IllegalArgumentException if the board has more than {@link #MAX_PIECES} pieces
+     */
+    public static void encode(ChessGame game, ByteBuffer out) {
+        ChessBoard board = game.getBoard();
+        long occupied = occupied(board);
+        int flags = flags(game);
+        boolean swap = out.order() != ByteOrder.BIG_ENDIAN;
+        out.putLong(bigEndian(occupied, swap))
+                .putLong(bigEndian(codes(board, occupied, 0, flags), swap))
+                .putLong(bigEndian(codes(board, occupied, 1, flags), swap))
+                .putLong(bigEndian(codes(board, occupied, 2, flags), swap));
+    }
+
+    /**
+     * Sets a board to an encoded position, ignoring the flags and clock. The
+     * board is left alone if the bytes aren't a position.
+     *
+     * @throws IllegalArgumentException if the bytes aren't a position
+     */
+    public static void decode(byte[] in, int offset, ChessBoard board) {
+        read(word(in, offset, 0), word(in, offset, 1), word(in, offset, 2), word(in, offset, 3), board);
+    }
+
+    /**
+     * Sets a game to an encoded position on its own board and drops its undo
+     * history. The game is left alone if the bytes aren't a position.
+     *
+     * @throws IllegalArgumentException if the bytes aren't a position
+     */
+    public static void decode(byte[] in, int offset, ChessGame game) {
+        long last = word(in, offset, 3);
+        read(word(in, offset, 0), word(in, offset, 1), word(in, offset, 2), last, game.getBoard());
+        setState(game, (int) last);
+    }
+
+    /**
+     * Sets a game to the position at the buffer's position and moves past it,
+     * like {@link #decode(byte[], int, ChessGame)}
+     *
+     * @throws IllegalArgumentException if the bytes aren't a position
+     */
+    public static void decode(ByteBuffer in, ChessGame game) {
+        boolean swap = in.order() != ByteOrder.BIG_ENDIAN;
+        int start = in.position();
+        long occupied = bigEndian(in.getLong(start), swap);
+        long first = bigEndian(in.getLong(start + Long.BYTES), swap);
+        long second = bigEndian(in.getLong(start + 2 * Long.BYTES), swap);
+        long last = bigEndian(in.getLong(start + 3 * Long.BYTES), swap);
+        read(occupied, first, second, last, game.getBoard());
+        setState(game, (int) last);
+        in.position(start + BYTES);
+    }
+
+    private static void write(ChessBoard board, int flags, byte[] out, int offset) {
+        long occupied = occupied(board);
+        LONGS.set(out, offset, occupied);
+        for (int word = 0; word < 3; word++) {
+            LONGS.set(out, offset + (word + 1) * Long.BYTES, codes(board, occupied, word, flags));
+        }
+    }
+
+    private static long occupied(ChessBoard board) {
+        long occupied = board.occupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("A board with more than " + MAX_PIECES + " pieces can't be encoded");
+        }
+        return occupied;
+    }
+
+    /**
+     * @return one of the three words of piece codes, the flags and clock going in the last one
+     */
+    private static long codes(ChessBoard board, long occupied, int word, int flags) {
+        for (int i = 0; i < word * CODES_PER_WORD && occupied != 0; i++) {
+            occupied &= occupied - 1;
+        }
+        long value = 0;
+        for (int i = 0; i < CODES_PER_WORD; i++) {
+            int code = 0;
+            if (occupied != 0) {
+                ChessPiece piece = board.getPiece(Long.numberOfTrailingZeros(occupied));
+                occupied &= occupied - 1;
+                code = piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+            }
+            value = (value << 4) | code;
+        }
+        return word == 2 ? value | flags : value;
+    }
+
+    /**
+     * @return the flags half byte and the clock byte, as they end the last word
+     */
+    private static int flags(ChessGame game) {
+        int flags = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0)
+                | (game.isGameOver() ? GAME_OVER : 0);
+        return flags << 8 | Math.min(game.getHalfmoveClock(), MAX_CLOCK);
+    }
+
+    private static void read(long occupied, long first, long second, long last, ChessBoard board) {
+        int pieces = Long.bitCount(occupied);
+        if (pieces > MAX_PIECES) {
+            throw new IllegalArgumentException("Encoded position has more than " + MAX_PIECES + " pieces");
+        }
+        //Checked in full before the board is touched
+        for (int i = 0; i < pieces; i++) {
+            if (code(first, second, last, i) >= 12) {
+                throw new IllegalArgumentException("Encoded position has an unknown piece code");
+            }
+        }
+        int index = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = null;
+            if ((occupied & (1L << square)) != 0) {
+                int code = code(first, second, last, index++);
+                piece = ChessPiece.of(TEAMS[code / 6], TYPES[code % 6]);
+            }
+            if (board.getPiece(square) != piece) {
+                board.addPiece(square, piece);
+            }
+        }
+    }
+
+    private static int code(long first, long second, long last, int index) {
+        long word = index < CODES_PER_WORD ? first : index < 2 * CODES_PER_WORD ? second : last;
+        return (int) (word >>> ((CODES_PER_WORD - 1 - index % CODES_PER_WORD) * 4)) & 0xF;
+    }
+
+    /**
+     * @param state the low bits of the last word, the flags above the clock byte
+     */
+    private static void setState(ChessGame game, int state) {
+        int flags = (state >>> 8) & 0xF;
+        //Drops the undo history and cached moves of the old position
+        game.setBoard(game.getBoard());
+        game.setTeamTurn((flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setGameOver((flags & GAME_OVER) != 0);
+        game.setHalfmoveClock(state & MAX_CLOCK);
+    }
+
+    private static long bigEndian(long value, boolean swap) {
+        return swap ? Long.reverseBytes(value) : value;
+    }
+
+    private static long word(byte[] in, int offset, int word) {
+        return (long) LONGS.get(in, offset + word * Long.BYTES);
+    }
+}
@@ -0,0 +1,60 @@
+package chess.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link TranspositionTable} kept in native memory outside the Java heap, so
+ * a table of several gigabytes isn't copied or scanned by the collector. The
+ * memory is allocated as direct buffers of up to 1 GB each, which together
+ * can't exceed {@code -XX:MaxDirectMemorySize} (by default the same as
+ * {@code -Xmx}). It is only freed once the buffers themselves are garbage
+ * collected, some time after the table is no longer used.
+ */
+public final class DirectTranspositionTable extends TranspositionTable {
+
+    //Opaque access keeps each long whole without ordering it against other memory
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    private static final long MAX_BUCKETS = 1L << 34;
+
+    //Buckets never straddle two chunks, as a chunk's size is a multiple of a bucket's
+    private final ByteBuffer[] chunks;
+
+    /**
+     * @param megabytes table size, rounded down to a power of two buckets
+     * @throws IllegalStateException if the JVM won't allocate that much direct memory
+     */
+    public DirectTranspositionTable(int megabytes) {
+        super(bucketCount(megabytes, MAX_BUCKETS));
+        long bytes = sizeBytes();
+        int count = (int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT);
+        this.chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long chunkBytes = Math.min(bytes - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+            try {
+                chunks[i] = ByteBuffer.allocateDirect((int) chunkBytes);
+            } catch (OutOfMemoryError e) {
+                throw new IllegalStateException("Can't allocate a " + (bytes >>> 20)
+                        + " MB transposition table in direct memory; raise -XX:MaxDirectMemorySize"
+                        + " or use a HeapTranspositionTable", e);
+            }
+        }
+    }
+
+    @Override
+    long read(long index) {
+        long offset = index << 3;
+        return (long) LONGS.getOpaque(chunks[(int) (offset >>> CHUNK_SHIFT)], (int) (offset & CHUNK_MASK));
+    }
+
+    @Override
+    void write(long index, long value) {
+        long offset = index << 3;
+        LONGS.setOpaque(chunks[(int) (offset >>> CHUNK_SHIFT)], (int) (offset & CHUNK_MASK), value);
+    }
+}
@@ -0,0 +1,40 @@
+package chess.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A {@link TranspositionTable} kept in a Java long array, up to 8 GB
+ */
+public final class HeapTranspositionTable extends TranspositionTable {
+
+    //Opaque access keeps each long whole without ordering it against other memory
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long MAX_BUCKETS = 1L << 27;
+
+    private final long[] slots;
+
+    /**
+     * @param megabytes table size, rounded down to a power of two buckets
+     */
+    public HeapTranspositionTable(int megabytes) {
+        super(bucketCount(megabytes, MAX_BUCKETS));
+        this.slots = new long[(int) (sizeBytes() / Long.BYTES)];
+    }
+
+    @Override
+    long read(long index) {
+        return (long) LONGS.getOpaque(slots, (int) index);
+    }
+
+    @Override
+    void write(long index, long value) {
+        LONGS.setOpaque(slots, (int) index, value);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, 0L);
+    }
+}
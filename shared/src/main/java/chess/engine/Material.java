@@ -0,0 +1,26 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Piece values in centipawns for ordering captures, and the material check for null moves
+ */
+final class Material {
+
+    //Indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    static final int[] VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Material() {
+    }
+
+    /**
+     * @return true if the team has a piece other than its king and pawns, which makes
+     * zugzwang unlikely enough to try a null move
+     */
+    static boolean hasPieces(ChessBoard board, ChessGame.TeamColor team) {
+        return (board.pieces(team) & ~board.pieces(team, ChessPiece.PieceType.KING)
+                & ~board.pieces(team, ChessPiece.PieceType.PAWN)) != 0;
+    }
+}
@@ -0,0 +1,443 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.eval.Evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks a move for the team to move with Monte Carlo tree search.
+ * <p>
+ * Each playout walks down the tree by UCT, expands the node it ends on once
+ * it has been visited before, then plays random moves from there until the
+ * game ends or the playout is long enough to be adjudicated by an
+ * {@link Evaluator}. The result is backed up the path it came down.
+ * <p>
+ * The threads are split over one or more trees (root parallelism), and the
+ * threads of a tree share it (tree parallelism). A thread counts its visit to
+ * every node on its path before its playout, a virtual loss that steers the
+ * others on the same tree elsewhere until the result is in. When the search
+ * ends the trees' root moves are added up and the most visited one is played.
+ * <p>
+ * Nodes live in fixed primitive arrays allocated up front, {@link #BYTES_PER_NODE}
+ * bytes each, so the memory a search uses is known exactly. Once a tree is
+ * full its leaves are no longer expanded and the search carries on with
+ * playouts from them.
+ */
+public final class MonteCarloSearch implements AutoCloseable {
+
+    /**
+     * Bytes of the arrays behind each node
+     */
+    public static final int BYTES_PER_NODE = 6 * Integer.BYTES;
+
+    private static final int ROOT = 0;
+    private static final int MAX_PATH = 512;
+    //Random moves played before a playout is adjudicated
+    private static final int PLAYOUT_PLIES = 40;
+    //Evaluation a side needs at the end of a playout to be counted as winning it
+    private static final int WIN_MARGIN = 200;
+    private static final double EXPLORATION = 1.0;
+    //Results are kept in half points, so a draw is 1 and a win 2
+    private static final int WIN = 2;
+    private static final int DRAW = 1;
+
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+    private static final int LEAF = 3;
+
+    private final Tree[] trees;
+    private final Worker[] workers;
+    private final ExecutorService executor;
+    private final AtomicLong playouts = new AtomicLong();
+    private volatile boolean stopped;
+
+    /**
+     * @param nodes   nodes over all the trees, which bounds the memory to
+     *                {@code nodes * BYTES_PER_NODE} bytes
+     * @param threads number of threads to search with, including the calling thread
+     * @param trees   number of independent trees the threads are split over, from
+     *                1 for pure tree parallelism to {@code threads} for pure root parallelism
+     */
+    public MonteCarloSearch(int nodes, int threads, int trees) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        if (trees < 1 || trees > threads) {
+            throw new IllegalArgumentException("Trees must be between 1 and the number of threads");
+        }
+        if (nodes / trees < 2) {
+            throw new IllegalArgumentException("Each tree needs room for at least two nodes");
+        }
+        this.trees = new Tree[trees];
+        for (int i = 0; i < trees; i++) {
+            this.trees[i] = new Tree(nodes / trees);
+        }
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(this.trees[i % trees], i);
+        }
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * @return the number of nodes that fit in a memory budget
+     */
+    public static int nodesFor(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, bytes / BYTES_PER_NODE);
+    }
+
+    /**
+     * Searches the position of a game for the best move of the team whose turn
+     * it is. The game itself is not changed, and each search starts new trees.
+     *
+     * @param position game to search
+     * @param limits   playouts ({@link SearchLimits#nodes()}) and time the search
+     *                 may take; the depth limit doesn't apply here
+     * @return the most visited move, its score converted from its win rate, the
+     * deepest line in the trees and the number of playouts
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        if (limits.nodes() == 0 && limits.millis() == 0) {
+            throw new IllegalArgumentException("A Monte Carlo search needs a playout or time limit");
+        }
+        long start = System.nanoTime();
+        long playoutLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        long deadline = limits.millis() > 0 ? start + limits.millis() * 1_000_000L : Long.MAX_VALUE;
+        stopped = false;
+        playouts.set(0);
+        for (Tree tree : trees) {
+            tree.reset();
+        }
+
+        List<Future<?>> running = new ArrayList<>(workers.length - 1);
+        for (int i = 1; i < workers.length; i++) {
+            Worker worker = workers[i];
+            running.add(executor.submit(() -> worker.run(position, playoutLimit, deadline)));
+        }
+        workers[0].run(position, playoutLimit, deadline);
+        for (Future<?> future : running) {
+            join(future);
+        }
+        return result(start);
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the most slots any one tree has handed out, for tests
+     */
+    int largestTreeSize() {
+        int largest = 0;
+        for (Tree tree : trees) {
+            largest = Math.max(largest, tree.size.get());
+        }
+        return largest;
+    }
+
+    /**
+     * Adds up the root moves of every tree and picks the most visited
+     */
+    private SearchResult result(long start) {
+        //Any tree that expanded its root will do; one whose worker never got going won't have
+        Tree expanded = null;
+        for (Tree tree : trees) {
+            if (tree.state.get(ROOT) == EXPANDED) {
+                expanded = tree;
+                break;
+            }
+        }
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth = Math.max(depth, worker.maxDepth);
+        }
+        int count = expanded == null ? 0 : expanded.childCount[ROOT];
+        if (count == 0) {
+            return new SearchResult(null, 0, depth, playouts.get(), System.nanoTime() - start);
+        }
+
+        //Every tree expands the root with the same moves in the same order
+        int bestMove = 0;
+        long bestVisits = -1;
+        long bestWins = 0;
+        for (int i = 0; i < count; i++) {
+            long visits = 0;
+            long wins = 0;
+            for (Tree tree : trees) {
+                if (tree.state.get(ROOT) == EXPANDED) {
+                    int child = tree.firstChild[ROOT] + i;
+                    visits += tree.visits.get(child);
+                    wins += tree.wins.get(child);
+                }
+            }
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                bestWins = wins;
+                bestMove = expanded.moves[expanded.firstChild[ROOT] + i];
+            }
+        }
+        int score = bestVisits == 0 ? 0 : centipawns((double) bestWins / (WIN * bestVisits));
+        return new SearchResult(MoveList.toChessMove(bestMove), score, depth, playouts.get(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Converts a win rate to centipawns with the usual logistic curve
+     */
+    private static int centipawns(double winRate) {
+        double clamped = Math.min(Math.max(winRate, 0.001), 0.999);
+        return (int) Math.round(400 * Math.log10(clamped / (1 - clamped)));
+    }
+
+    private static void join(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a search thread", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+
+    /**
+     * A tree in a node arena. A node's children are allocated together, so a
+     * node only records where they start and how many there are. Results are
+     * stored for the team that played the move into the node.
+     */
+    private static final class Tree {
+
+        final int capacity;
+        //Packed move into each node, see MoveList
+        final int[] moves;
+        final int[] firstChild;
+        final int[] childCount;
+        final AtomicIntegerArray visits;
+        //Sum of playout results in half points
+        final AtomicIntegerArray wins;
+        //UNEXPANDED, EXPANDING, EXPANDED or LEAF; a node's children are published by setting EXPANDED
+        final AtomicIntegerArray state;
+        final AtomicInteger size = new AtomicInteger();
+
+        Tree(int capacity) {
+            this.capacity = capacity;
+            this.moves = new int[capacity];
+            this.firstChild = new int[capacity];
+            this.childCount = new int[capacity];
+            this.visits = new AtomicIntegerArray(capacity);
+            this.wins = new AtomicIntegerArray(capacity);
+            this.state = new AtomicIntegerArray(capacity);
+        }
+
+        void reset() {
+            size.set(1);
+            childCount[ROOT] = 0;
+            visits.set(ROOT, 0);
+            wins.set(ROOT, 0);
+            state.set(ROOT, UNEXPANDED);
+        }
+
+        /**
+         * Adds a child per legal move of the position the node stands for, unless
+         * another thread is already doing so or the tree is full
+         *
+         * @return true if the node has children now
+         */
+        boolean expand(int node, ChessGame game, MoveList legal) {
+            if (!state.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+                return state.get(node) == EXPANDED;
+            }
+            legal.clear();
+            game.legalMoves(legal);
+            int count = legal.size();
+            int first = count == 0 ? -1 : reserve(count);
+            if (first < 0) {
+                //Terminal or out of room: the node stays a leaf for good
+                state.set(node, LEAF);
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                int child = first + i;
+                moves[child] = legal.get(i);
+                childCount[child] = 0;
+                visits.set(child, 0);
+                wins.set(child, 0);
+                state.set(child, UNEXPANDED);
+            }
+            firstChild[node] = first;
+            childCount[node] = count;
+            state.set(node, EXPANDED);
+            return true;
+        }
+
+        /**
+         * Claims count free slots, leaving size alone when they don't fit so it
+         * never grows past capacity however long the search runs
+         *
+         * @return the first slot claimed, or -1 if the tree hasn't room
+         */
+        private int reserve(int count) {
+            while (true) {
+                int used = size.get();
+                if (used > capacity - count) {
+                    return -1;
+                }
+                if (size.compareAndSet(used, used + count)) {
+                    return used;
+                }
+            }
+        }
+
+        /**
+         * @return the child with the highest UCT score, unvisited children first
+         */
+        int select(int node) {
+            int first = firstChild[node];
+            int count = childCount[node];
+            double logParent = Math.log(Math.max(1, visits.get(node)));
+            int best = first;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                int childVisits = visits.get(child);
+                if (childVisits == 0) {
+                    return child;
+                }
+                double score = (double) wins.get(child) / (WIN * childVisits)
+                        + EXPLORATION * Math.sqrt(logParent / childVisits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * One thread's share of the search, with its own copy of the game and buffers
+     */
+    private final class Worker {
+
+        private final Tree tree;
+        private final SplittableRandom random;
+        private final Evaluator evaluator = new Evaluator();
+        private final MoveList legal = new MoveList();
+        private final int[] path = new int[MAX_PATH];
+        int maxDepth;
+
+        Worker(Tree tree, int seed) {
+            this.tree = tree;
+            this.random = new SplittableRandom(seed);
+        }
+
+        void run(ChessGame position, long playoutLimit, long deadline) {
+            ChessGame game = new ChessGame(position);
+            maxDepth = 0;
+            while (!stopped) {
+                if (playouts.getAndIncrement() >= playoutLimit) {
+                    playouts.decrementAndGet();
+                    stopped = true;
+                    break;
+                }
+                playout(game);
+                if (System.nanoTime() >= deadline) {
+                    stopped = true;
+                }
+            }
+        }
+
+        /**
+         * Runs one playout: select, expand, play out, back up
+         */
+        private void playout(ChessGame game) {
+            int node = ROOT;
+            int length = 0;
+            path[length++] = ROOT;
+            tree.visits.incrementAndGet(ROOT);
+            while (length < MAX_PATH) {
+                int state = tree.state.get(node);
+                if (state != EXPANDED) {
+                    boolean ready = state == UNEXPANDED && (node == ROOT || tree.visits.get(node) > 1)
+                            && tree.expand(node, game, legal);
+                    if (!ready) {
+                        break;
+                    }
+                }
+                node = tree.select(node);
+                tree.visits.incrementAndGet(node);
+                game.doMove(tree.moves[node]);
+                path[length++] = node;
+            }
+            maxDepth = Math.max(maxDepth, length - 1);
+
+            int result = rollout(game);
+            //The leaf's result is for the team to move there, the node holds it for the other team
+            for (int i = length - 1; i >= 0; i--) {
+                result = WIN - result;
+                tree.wins.addAndGet(path[i], result);
+                if (i > 0) {
+                    game.undoMove();
+                }
+            }
+        }
+
+        /**
+         * Plays random moves from the game's position and takes them back again
+         *
+         * @return the result for the team to move at the start, in half points
+         */
+        private int rollout(ChessGame game) {
+            ChessGame.TeamColor start = game.getTeamTurn();
+            int played = 0;
+            int result = -1;
+            while (played < PLAYOUT_PLIES) {
+                legal.clear();
+                game.legalMoves(legal);
+                if (legal.isEmpty()) {
+                    ChessGame.TeamColor toMove = game.getTeamTurn();
+                    result = !game.isInCheck(toMove) ? DRAW : toMove == start ? 0 : WIN;
+                    break;
+                }
+                game.doMove(legal.get(random.nextInt(legal.size())));
+                played++;
+            }
+            if (result < 0) {
+                int score = evaluator.evaluate(game);
+                int forStart = game.getTeamTurn() == start ? score : -score;
+                result = forStart > WIN_MARGIN ? WIN : forStart < -WIN_MARGIN ? 0 : DRAW;
+            }
+            for (int i = 0; i < played; i++) {
+                game.undoMove();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.eval.Evaluator;
+import chess.eval.PositionEvaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Searches one position on several threads at once (Lazy SMP).
+ * <p>
+ * Every thread runs its own {@link Search} of the same root, and they only
+ * cooperate through one shared {@link TranspositionTable}: a result stored by
+ * any thread cuts off or orders the moves of the others. Half the helper
+ * threads start one iteration deeper than the main search, so the threads
+ * spread over neighbouring depths instead of repeating each other's work.
+ * The calling thread runs the main search, and the helpers are stopped as
+ * soon as it finishes, so its limits are the limits of the whole search.
+ * Each thread scores leaves with its own {@link PositionEvaluator}.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Search main;
+    private final List<Search> helpers = new ArrayList<>();
+    private final ExecutorService executor;
+
+    /**
+     * @param table   transposition table shared by every thread
+     * @param threads number of threads to search with, including the calling thread
+     */
+    public ParallelSearch(TranspositionTable table, int threads) {
+        this(table, threads, Evaluator::new);
+    }
+
+    /**
+     * @param table      transposition table shared by every thread
+     * @param threads    number of threads to search with, including the calling thread
+     * @param evaluators called once per thread, as evaluators keep state and can't be shared
+     */
+    public ParallelSearch(TranspositionTable table, int threads, Supplier<? extends PositionEvaluator> evaluators) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        this.table = table;
+        this.main = new Search(table, evaluators.get());
+        for (int i = 1; i < threads; i++) {
+            helpers.add(new Search(table, evaluators.get()));
+        }
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Searches the position of a game for the best move of the team whose
+     * turn it is, like {@link Search#search}. The node count is the total
+     * over every thread.
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        long start = System.nanoTime();
+        table.newSearch();
+        //Helpers search until the main search stops them, and only the main one counts nodes
+        SearchLimits helperLimits = new SearchLimits(limits.depth() > 0 ? limits.depth() : Search.MAX_DEPTH,
+                0, limits.millis());
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.size());
+        for (int i = 0; i < helpers.size(); i++) {
+            Search helper = helpers.get(i);
+            int firstDepth = 1 + i % 2;
+            helper.reset();
+            running.add(executor.submit(() -> helper.search(position, helperLimits, firstDepth)));
+        }
+
+        main.reset();
+        SearchResult result = main.search(position, limits, 1);
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+
+        SearchResult best = result;
+        long nodes = result.nodes();
+        for (Future<SearchResult> future : running) {
+            SearchResult helperResult = join(future);
+            nodes += helperResult.nodes();
+            //A helper that finished a deeper iteration has the better move
+            if (helperResult.depth() > best.depth() && helperResult.bestMove() != null) {
+                best = helperResult;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can. Safe to call from any thread.
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SearchResult join(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a search thread", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
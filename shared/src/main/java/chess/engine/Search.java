@@ -0,0 +1,542 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.eval.Evaluator;
+import chess.eval.PositionEvaluator;
+
+/**
+ * Picks a move for the team to move with an iterative-deepening alpha-beta
+ * (principal variation) search.
+ * <p>
+ * Each iteration searches one ply deeper than the last, seeded by the
+ * transposition table, so a search can stop at any point and still return
+ * the best move of the last finished iteration. Moves are tried in the order
+ * transposition table move, captures by most valuable victim and least
+ * valuable attacker, killer moves, then quiet moves by history score. Null
+ * moves and late move reductions prune the tree, and a quiescence search
+ * resolves captures at the leaves before they are scored, by an {@link Evaluator}
+ * unless another {@link PositionEvaluator} is given. A position that repeats
+ * one since the last capture or pawn move, on the line or in the game before
+ * the root, or that reaches the fifty-move rule scores as a draw.
+ * <p>
+ * A search works on its own copy of the game and reuses its move and
+ * ordering arrays between searches, so it allocates almost nothing while
+ * running. One instance searches one game at a time; use an instance per
+ * concurrent search, or {@link ParallelSearch} to put several threads on one.
+ */
+public final class Search {
+
+    /**
+     * Score of being checkmated now. Mate in n plies scores {@code MATE - n}.
+     */
+    public static final int MATE = 30000;
+
+    static final int MAX_PLY = 64;
+    private static final int INFINITY = MATE + 1;
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+    //Iterations stop here when no other limit is set
+    static final int MAX_DEPTH = MAX_PLY - 4;
+    //How often the clock is read, in nodes
+    private static final int CLOCK_INTERVAL = 1024;
+
+    //Move ordering bands, highest first
+    private static final int TABLE_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    private static final int HISTORY_LIMIT = 1 << 27;
+
+    //Order attackers are preferred in for MVV-LVA, by PieceType ordinal
+    private static final int[] ATTACKER_RANK = {5, 4, 2, 1, 3, 0};
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+
+    private final TranspositionTable table;
+    private final PositionEvaluator evaluator;
+    private final MoveList generated = new MoveList();
+    private final int[][] moves = new int[MAX_PLY + 1][MoveList.DEFAULT_CAPACITY];
+    private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.DEFAULT_CAPACITY];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    //Indexed by team, then from * 64 + to
+    private final int[][] history = new int[2][64 * 64];
+    //Keys of the positions on the current line, and how far back each one
+    //can be repeated from (the last capture, pawn move or null move)
+    private final long[] lineKeys = new long[MAX_PLY + 1];
+    private final int[] repetitionFloor = new int[MAX_PLY + 1];
+    //Keys of the game's positions before the root that can still be repeated, oldest first
+    private long[] gameKeys;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int rootBestMove;
+    private volatile boolean stopped;
+
+    /**
+     * @param table transposition table to read and store results in, which can be
+     *              kept between searches of the same game to reuse earlier work
+     */
+    public Search(TranspositionTable table) {
+        this(table, new Evaluator());
+    }
+
+    /**
+     * @param table     transposition table to read and store results in
+     * @param evaluator scores the leaves, used only by this search
+     */
+    public Search(TranspositionTable table, PositionEvaluator evaluator) {
+        this.table = table;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Searches the position of a game for the best move of the team whose
+     * turn it is. The game itself is not changed.
+     *
+     * @param position game to search
+     * @param limits   when to stop searching
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        reset();
+        table.newSearch();
+        return search(position, limits, 1);
+    }
+
+    /**
+     * Clears a stop request, before a search that may be stopped from another
+     * thread as soon as it starts
+     */
+    void reset() {
+        stopped = false;
+    }
+
+    /**
+     * Runs a search whose iterations start at firstDepth instead of 1, so searches
+     * of the same root on several threads are at different depths
+     */
+    SearchResult search(ChessGame position, SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        game = new ChessGame(position);
+        board = game.getBoard();
+        nodes = 0;
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        deadline = limits.millis() > 0 ? start + limits.millis() * 1_000_000 : Long.MAX_VALUE;
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_DEPTH) : MAX_DEPTH;
+        prepareOrdering();
+
+        int bestMove = 0;
+        int bestScore = 0;
+        int finishedDepth = 0;
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            rootBestMove = 0;
+            int score = search(depth, -INFINITY, INFINITY, 0, false);
+            if (stopped) {
+                //A move that was searched fully is still worth more than nothing
+                if (bestMove == 0) {
+                    bestMove = rootBestMove;
+                }
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            finishedDepth = depth;
+            //No point looking past a forced mate
+            if (Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth) {
+                break;
+            }
+        }
+        if (bestMove == 0) {
+            //Stopped before a single root move was searched
+            generated.clear();
+            game.legalMoves(generated);
+            bestMove = generated.isEmpty() ? 0 : generated.get(0);
+        }
+
+        ChessMove move = bestMove == 0 ? null : MoveList.toChessMove(bestMove);
+        game = null;
+        board = null;
+        gameKeys = null;
+        return new SearchResult(move, bestScore, finishedDepth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return true if a score is a forced mate for either side
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
+
+    private void prepareOrdering() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        //Keep what earlier searches learned, but let this one outweigh it
+        for (int[] teamHistory : history) {
+            for (int i = 0; i < teamHistory.length; i++) {
+                teamHistory[i] >>= 3;
+            }
+        }
+        lineKeys[0] = game.zobristKey();
+        repetitionFloor[0] = 0;
+        gameKeys = game.repeatablePositionKeys();
+    }
+
+    private int search(int depth, int alpha, int beta, int ply, boolean nullAllowed) {
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        if (ply > 0 && isRepetition(ply)) {
+            return 0;
+        }
+        //Fifty moves without a capture or pawn move draw, unless the last one mated,
+        //which in check is only known once the moves below have been generated
+        boolean fiftyMoves = ply > 0 && game.getHalfmoveClock() >= ChessGame.FIFTY_MOVE_PLIES;
+        if (fiftyMoves && !game.isInCheck(game.getTeamTurn())) {
+            return 0;
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        long key = lineKeys[ply];
+        long entry = table.probe(key);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (!pvNode && !fiftyMoves && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        ChessGame.TeamColor us = game.getTeamTurn();
+        ChessGame.TeamColor them = TEAMS[1 - us.ordinal()];
+        boolean inCheck = game.isInCheck(us);
+        if (inCheck) {
+            depth++;
+        }
+
+        //Null move: if passing still beats beta, a real move will too
+        if (nullAllowed && !pvNode && !inCheck && depth >= 3 && Material.hasPieces(board, us)
+                && evaluator.evaluate(game) >= beta) {
+            int reduction = 2 + depth / 4;
+            game.setTeamTurn(them);
+            lineKeys[ply + 1] = game.zobristKey();
+            repetitionFloor[ply + 1] = ply + 1;
+            int score = -search(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+            game.setTeamTurn(us);
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+
+        int count = generateMoves(ply, tableMove, false);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        if (fiftyMoves) {
+            return 0;
+        }
+
+        int bestScore = -INFINITY;
+        int bestMove = 0;
+        int bound = TranspositionTable.UPPER;
+        int[] plyMoves = moves[ply];
+        for (int i = 0; i < count; i++) {
+            pickNext(ply, i, count);
+            int move = plyMoves[i];
+            boolean quiet = isQuiet(move);
+            boolean irreversible = !quiet || isPawnMove(move);
+            makeMove(move, ply, irreversible);
+            boolean givesCheck = game.isInCheck(them);
+
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                //Late move reductions: quiet moves ordered late rarely matter
+                int reduction = 0;
+                if (depth >= 3 && i >= 3 && quiet && !inCheck && !givesCheck) {
+                    reduction = Math.min(depth - 2, i >= 8 ? 2 : 1);
+                }
+                score = -search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && reduction > 0) {
+                    score = -search(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    bound = TranspositionTable.EXACT;
+                    if (score >= beta) {
+                        bound = TranspositionTable.LOWER;
+                        if (quiet) {
+                            rememberCutoff(move, us, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches captures and promotions only, until the position is quiet,
+     * so the evaluation is never taken in the middle of an exchange
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(game);
+        }
+
+        ChessGame.TeamColor us = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(us);
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            //The team to move can usually do at least as well as standing pat
+            bestScore = evaluator.evaluate(game);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        //Out of check every move is searched, otherwise only the tactical ones
+        int count = generateMoves(ply, 0, !inCheck);
+        if (count == 0) {
+            if (inCheck) {
+                return -MATE + ply;
+            }
+            return generated.isEmpty() ? 0 : bestScore;
+        }
+
+        int[] plyMoves = moves[ply];
+        for (int i = 0; i < count; i++) {
+            pickNext(ply, i, count);
+            int move = plyMoves[i];
+            //Captures that lose material once the exchange plays out can't raise alpha
+            if (!inCheck && game.staticExchange(move) < 0) {
+                continue;
+            }
+            makeMove(move, ply, true);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Counts a node and checks the limits
+     *
+     * @return true if the search has to stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit || (nodes % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private boolean isRepetition(int ply) {
+        long key = lineKeys[ply];
+        for (int i = ply - 2; i >= repetitionFloor[ply]; i -= 2) {
+            if (lineKeys[i] == key) {
+                return true;
+            }
+        }
+        //A line with no capture, pawn move or null move since the root can repeat the game before it
+        if (repetitionFloor[ply] == 0) {
+            for (int i = gameKeys.length - 2 + (ply & 1); i >= 0; i -= 2) {
+                if (gameKeys[i] == key) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void makeMove(int move, int ply, boolean irreversible) {
+        game.doMove(move);
+        lineKeys[ply + 1] = game.zobristKey();
+        repetitionFloor[ply + 1] = irreversible ? ply + 1 : repetitionFloor[ply];
+    }
+
+    /**
+     * Generates the legal moves of the team to move into the ply's move array
+     * and scores them for ordering
+     *
+     * @param tacticalOnly keep only captures and promotions
+     * @return number of moves kept
+     */
+    private int generateMoves(int ply, int tableMove, boolean tacticalOnly) {
+        generated.clear();
+        game.legalMoves(generated);
+        int[] plyMoves = moves[ply];
+        int[] scores = moveScores[ply];
+        int[] plyKillers = killers[ply];
+        int[] teamHistory = history[game.getTeamTurn().ordinal()];
+        int count = 0;
+        for (int i = 0; i < generated.size(); i++) {
+            int move = generated.get(i);
+            int score;
+            if (move == tableMove) {
+                score = TABLE_MOVE_SCORE;
+            } else if (!isQuiet(move)) {
+                score = CAPTURE_SCORE + tacticalScore(move);
+            } else if (tacticalOnly) {
+                continue;
+            } else if (move == plyKillers[0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == plyKillers[1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = teamHistory[move & 0xFFF];
+            }
+            plyMoves[count] = move;
+            scores[count] = score;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * MVV-LVA: the most valuable victim first, taken by the least valuable attacker
+     */
+    private int tacticalScore(int move) {
+        int score = 0;
+        ChessPiece victim = board.getPiece(MoveList.to(move));
+        if (victim != null) {
+            score += Material.VALUES[victim.getPieceType().ordinal()] * 8;
+        }
+        ChessPiece.PieceType promotion = MoveList.promotion(move);
+        if (promotion != null) {
+            score += Material.VALUES[promotion.ordinal()] * 8;
+        }
+        return score + ATTACKER_RANK[board.getPiece(MoveList.from(move)).getPieceType().ordinal()];
+    }
+
+    /**
+     * Moves the best scored of the remaining moves to index, so moves are only
+     * sorted as far as the search gets before a cutoff
+     */
+    private void pickNext(int ply, int index, int count) {
+        int[] plyMoves = moves[ply];
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = plyMoves[best];
+            plyMoves[best] = plyMoves[index];
+            plyMoves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+    }
+
+    private void rememberCutoff(int move, ChessGame.TeamColor team, int ply, int depth) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[] teamHistory = history[team.ordinal()];
+        int index = move & 0xFFF;
+        teamHistory[index] += depth * depth;
+        if (teamHistory[index] >= HISTORY_LIMIT) {
+            for (int i = 0; i < teamHistory.length; i++) {
+                teamHistory[i] >>= 1;
+            }
+        }
+    }
+
+    private boolean isQuiet(int move) {
+        return board.getPiece(MoveList.to(move)) == null && MoveList.promotion(move) == null;
+    }
+
+    private boolean isPawnMove(int move) {
+        return board.getPiece(MoveList.from(move)).getPieceType() == ChessPiece.PieceType.PAWN;
+    }
+
+    /**
+     * Mate scores are stored relative to the position rather than the root,
+     * so they stay right when the position is reached at another ply
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,33 @@
+package chess.engine;
+
+/**
+ * How far a search may go. The search stops at whichever limit it reaches
+ * first, and a limit of 0 means no limit of that kind.
+ *
+ * @param depth  deepest iteration to search, in plies
+ * @param nodes  number of positions the search may visit
+ * @param millis wall-clock time the search may take
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+
+    public SearchLimits {
+        if (depth < 0 || nodes < 0 || millis < 0) {
+            throw new IllegalArgumentException("Search limits can't be negative");
+        }
+        if (depth == 0 && nodes == 0 && millis == 0) {
+            throw new IllegalArgumentException("A search needs at least one limit");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+}
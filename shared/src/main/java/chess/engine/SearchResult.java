@@ -0,0 +1,16 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search
+ *
+ * @param bestMove best move found, or null if the team to move has none
+ * @param score    score of the best move in centipawns for the team to move, see
+ *                 {@link Search#isMateScore(int)}
+ * @param depth    deepest iteration that finished
+ * @param nodes    positions visited
+ * @param nanos    time the search took
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long nanos) {
+}
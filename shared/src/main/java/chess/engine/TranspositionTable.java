@@ -0,0 +1,175 @@
+package chess.engine;
+
+/**
+ * Fixed-size table of search results keyed by a position's 64-bit Zobrist key.
+ * <p>
+ * The table is an array of buckets of four slots, 64 bytes in all so a bucket
+ * fills one cache line. Each slot is two longs: one packed entry holding the
+ * best move found (16 bits, packed as in {@link chess.MoveList}), the score
+ * (16 bits, signed), the depth searched (8 bits), whether the score is exact
+ * or a bound (2 bits) and the age of the search that stored it (6 bits), and
+ * the key XORed with that entry. A probe that finds nothing returns 0, which
+ * no stored entry equals because every bound is non-zero.
+ * <p>
+ * A new result replaces the slot already holding its position, or else the
+ * slot in its bucket worth least: empty slots first, then results left by
+ * older searches, then the shallowest.
+ * <p>
+ * The table can be shared by searches on several threads without locking.
+ * Each long is read and written whole, and a probe only accepts a slot whose
+ * two halves still XOR back to the key, so a slot torn by two threads storing
+ * at once reads as a miss instead of as another position's result.
+ * <p>
+ * {@link HeapTranspositionTable} keeps the slots in a Java array and
+ * {@link DirectTranspositionTable} keeps them in native memory outside the heap.
+ */
+public abstract sealed class TranspositionTable permits HeapTranspositionTable, DirectTranspositionTable {
+
+    //The score is at most this, at least that, or both
+    static final int UPPER = 1;
+    static final int LOWER = 2;
+    static final int EXACT = UPPER | LOWER;
+
+    static final int BUCKET_SLOTS = 4;
+    //Longs and bytes taken by one bucket
+    static final int BUCKET_LONGS = BUCKET_SLOTS * 2;
+    static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+
+    private static final int AGE_MASK = 63;
+    //How many plies of depth one search of age counts for when choosing a slot to replace
+    private static final int AGE_WEIGHT = 8;
+
+    private final long buckets;
+    private final long bucketMask;
+    private volatile int age;
+
+    TranspositionTable(long buckets) {
+        this.buckets = buckets;
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return the number of buckets that fit in a size, rounded down to a power of two
+     * @throws IllegalArgumentException if the size is under 1 MB or the table would
+     *                                  hold more than maxBuckets
+     */
+    static long bucketCount(int megabytes, long maxBuckets) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+        }
+        long count = Long.highestOneBit((long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+        if (count > maxBuckets) {
+            throw new IllegalArgumentException("Transposition table can't be larger than "
+                    + maxBuckets * BUCKET_BYTES / 1024 / 1024 + " MB");
+        }
+        return count;
+    }
+
+    /**
+     * Reads one of the table's longs, whole
+     */
+    abstract long read(long index);
+
+    /**
+     * Writes one of the table's longs, whole
+     */
+    abstract void write(long index, long value);
+
+    /**
+     * @return the table's size in bytes
+     */
+    public long sizeBytes() {
+        return buckets * BUCKET_BYTES;
+    }
+
+    /**
+     * Marks the start of a new search, making the results of earlier searches
+     * the first to be replaced
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Forgets every stored result
+     */
+    public void clear() {
+        long longs = buckets * BUCKET_LONGS;
+        for (long i = 0; i < longs; i++) {
+            write(i, 0L);
+        }
+    }
+
+    /**
+     * @return the entry stored for key, or 0 if there is none
+     */
+    long probe(long key) {
+        long bucket = (key & bucketMask) * BUCKET_LONGS;
+        for (int slot = 0; slot < BUCKET_LONGS; slot += 2) {
+            long entry = read(bucket + slot + 1);
+            if (entry != 0 && (read(bucket + slot) ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a result, keeping a deeper one this search already stored for the
+     * same position unless the new score is exact
+     */
+    void store(long key, int move, int score, int depth, int bound) {
+        long bucket = (key & bucketMask) * BUCKET_LONGS;
+        int currentAge = age;
+        long victim = bucket;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int slot = 0; slot < BUCKET_LONGS; slot += 2) {
+            long index = bucket + slot;
+            long stored = read(index + 1);
+            if (stored == 0) {
+                if (victimWorth > Integer.MIN_VALUE) {
+                    victim = index;
+                    victimWorth = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            if ((read(index) ^ stored) == key) {
+                if (depth(stored) > depth && bound != EXACT && age(stored) == currentAge) {
+                    return;
+                }
+                victim = index;
+                break;
+            }
+            int worth = depth(stored) - AGE_WEIGHT * ((currentAge - age(stored)) & AGE_MASK);
+            if (worth < victimWorth) {
+                victim = index;
+                victimWorth = worth;
+            }
+        }
+
+        long entry = (move & 0xFFFFL) | (score & 0xFFFFL) << 16 | (long) depth << 32 | (long) bound << 40
+                | (long) currentAge << 42;
+        write(victim, key ^ entry);
+        write(victim + 1, entry);
+    }
+
+    static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+
+    static int age(long entry) {
+        return (int) (entry >>> 42) & AGE_MASK;
+    }
+}
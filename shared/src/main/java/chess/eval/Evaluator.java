@@ -0,0 +1,177 @@
+package chess.eval;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Scores a position in centipawns from material, piece placement, mobility
+ * and pawn structure.
+ * <p>
+ * Every term has a middlegame and an endgame value, and the two are blended
+ * by how much material other than pawns is left. Material and placement are
+ * the board's {@link ChessBoard#squareScore(int[])} over the
+ * {@link PieceSquareTables}, which the board sums once and then keeps up to
+ * date as moves are made and unmade, so they cost nothing here. Mobility
+ * counts the squares each knight, bishop, rook and queen can go to that aren't
+ * held by its own pieces or guarded by enemy pawns. Doubled, isolated and
+ * passed pawns only depend on the pawns, so they are cached by pawn key in a
+ * {@link PawnTable}.
+ * <p>
+ * An evaluator allocates nothing once created. It isn't thread safe because of
+ * its pawn table, so use one per thread.
+ */
+public final class Evaluator implements PositionEvaluator {
+
+    //Phase weight of each piece by PieceType ordinal, a full board of pieces adding up to MAX_PHASE
+    private static final int[] PHASE = {0, 4, 1, 1, 2, 0};
+    private static final int MAX_PHASE = 24;
+
+    //Per square of mobility, and the square count of an average piece which scores 0
+    private static final int[] MOBILITY = {0, pack(1, 2), pack(5, 5), pack(4, 4), pack(2, 4), 0};
+    private static final int[] AVERAGE_MOBILITY = {0, 13, 6, 4, 7, 0};
+
+    private static final int TEMPO = 10;
+    private static final int DOUBLED = pack(-10, -20);
+    private static final int ISOLATED = pack(-10, -15);
+    //By rank counted from the pawn's own side, 0-7
+    private static final int[] PASSED = {0, pack(5, 10), pack(5, 15), pack(10, 25), pack(20, 45), pack(35, 75),
+            pack(55, 120), 0};
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor WHITE = ChessGame.TeamColor.WHITE;
+    private static final ChessGame.TeamColor BLACK = ChessGame.TeamColor.BLACK;
+
+    private final PawnTable pawnTable;
+
+    public Evaluator() {
+        this(PawnTable.DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @param pawnEntries number of pawn structures to cache, a power of two
+     */
+    public Evaluator(int pawnEntries) {
+        this.pawnTable = new PawnTable(pawnEntries);
+    }
+
+    /**
+     * @return the score from the point of view of the team to move, with a small bonus for having the move
+     */
+    @Override
+    public int evaluate(ChessGame game) {
+        int score = evaluate(game.getBoard());
+        return (game.getTeamTurn() == WHITE ? score : -score) + TEMPO;
+    }
+
+    /**
+     * @return the score from white's point of view, not counting whose turn it is
+     */
+    @Override
+    public int evaluate(ChessBoard board) {
+        int packed = board.squareScore(PieceSquareTables.PACKED) + pawnStructure(board)
+                + mobility(board, WHITE) - mobility(board, BLACK);
+
+        int phase = 0;
+        for (int type = 1; type < 5; type++) {
+            phase += PHASE[type] * (Long.bitCount(board.pieces(WHITE, TYPES[type]))
+                    + Long.bitCount(board.pieces(BLACK, TYPES[type])));
+        }
+        phase = Math.min(phase, MAX_PHASE);
+        return (PieceSquareTables.middlegame(packed) * phase
+                + PieceSquareTables.endgame(packed) * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    private static int mobility(ChessBoard board, ChessGame.TeamColor team) {
+        ChessGame.TeamColor enemy = team == WHITE ? BLACK : WHITE;
+        long occupied = board.occupied();
+        long area = ~board.pieces(team) & ~pawnAttacks(board.pieces(enemy, ChessPiece.PieceType.PAWN), enemy);
+        int score = 0;
+        long pieces = board.pieces(team) & ~board.pieces(team, ChessPiece.PieceType.KING)
+                & ~board.pieces(team, ChessPiece.PieceType.PAWN);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int type = board.getPiece(square).getPieceType().ordinal();
+            long targets = switch (TYPES[type]) {
+                case QUEEN -> Bitboards.queenAttacks(square, occupied);
+                case BISHOP -> Bitboards.bishopAttacks(square, occupied);
+                case KNIGHT -> Bitboards.knightAttacks(square);
+                case ROOK -> Bitboards.rookAttacks(square, occupied);
+                default -> 0L;
+            };
+            score += MOBILITY[type] * (Long.bitCount(targets & area) - AVERAGE_MOBILITY[type]);
+        }
+        return score;
+    }
+
+    private int pawnStructure(ChessBoard board) {
+        long key = board.pawnKey();
+        if (pawnTable.contains(key)) {
+            return pawnTable.score(key);
+        }
+        long white = board.pieces(WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.pieces(BLACK, ChessPiece.PieceType.PAWN);
+        int score = pawnStructure(white, black, WHITE) - pawnStructure(black, white, BLACK);
+        pawnTable.store(key, score);
+        return score;
+    }
+
+    private static int pawnStructure(long pawns, long enemyPawns, ChessGame.TeamColor team) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            long onFile = pawns & (Bitboards.FILE_A << file);
+            if (onFile == 0) {
+                continue;
+            }
+            score += DOUBLED * (Long.bitCount(onFile) - 1);
+            if ((pawns & adjacentFiles(file)) == 0) {
+                score += ISOLATED * Long.bitCount(onFile);
+            }
+        }
+
+        long remaining = pawns;
+        while (remaining != 0) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            int file = square & 7;
+            long lanes = (Bitboards.FILE_A << file) | adjacentFiles(file);
+            if ((enemyPawns & lanes & ahead(square, team)) == 0) {
+                int rank = team == WHITE ? square >>> 3 : 7 - (square >>> 3);
+                score += PASSED[rank];
+            }
+        }
+        return score;
+    }
+
+    private static long adjacentFiles(int file) {
+        long files = 0;
+        if (file > 0) {
+            files |= Bitboards.FILE_A << (file - 1);
+        }
+        if (file < 7) {
+            files |= Bitboards.FILE_A << (file + 1);
+        }
+        return files;
+    }
+
+    /**
+     * @return every square on the ranks in front of square, as seen by team
+     */
+    private static long ahead(int square, ChessGame.TeamColor team) {
+        int rank = square >>> 3;
+        return team == WHITE ? (rank == 7 ? 0L : -1L << ((rank + 1) * 8)) : (1L << (rank * 8)) - 1;
+    }
+
+    private static long pawnAttacks(long pawns, ChessGame.TeamColor team) {
+        if (team == WHITE) {
+            return ((pawns << 7) & ~Bitboards.FILE_H) | ((pawns << 9) & ~Bitboards.FILE_A);
+        }
+        return ((pawns >>> 9) & ~Bitboards.FILE_H) | ((pawns >>> 7) & ~Bitboards.FILE_A);
+    }
+
+    private static int pack(int middlegame, int endgame) {
+        return PieceSquareTables.pack(middlegame, endgame);
+    }
+}
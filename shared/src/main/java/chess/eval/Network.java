@@ -0,0 +1,142 @@
+package chess.eval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The weights of a quantized neural network for {@link NnueEvaluator}.
+ * <p>
+ * The network has 768 inputs, one per piece kind and square, seen from one
+ * side: the team's own pieces first, then the opponent's, with the board
+ * flipped for black. A feature transformer turns the active inputs into
+ * {@code hidden} int16 values per side (the accumulator), which go through a
+ * clipped ReLU and into one output neuron, the side to move's half first.
+ * Accumulator values are scaled by {@link #QA} and output weights by
+ * {@link #QB}, and the output is scaled to centipawns by {@link #SCALE}.
+ * <p>
+ * A network file is little-endian: the magic number and the hidden size,
+ * then the feature weights (input-major), the feature biases, the output
+ * weights and the output bias, all int16 except the int32 output bias. A
+ * loaded network keeps its feature weights, nearly all of the file, in the
+ * mapping and evaluates straight from it, so they're never copied onto the
+ * heap and processes loading the same file share its pages.
+ */
+public final class Network {
+
+    public static final int INPUTS = 768;
+    public static final int QA = 255;
+    public static final int QB = 64;
+    public static final int SCALE = 400;
+
+    static final long MAGIC = 0x314E4E5353454843L;
+    private static final int HEADER_BYTES = 12;
+
+    private final int hidden;
+    //INPUTS * hidden weights read by absolute index, either a mapped file or a wrapped array
+    final ShortBuffer featureWeights;
+    final short[] featureBiases;
+    final short[] outputWeights;
+    final int outputBias;
+
+    /**
+     * @param hidden         accumulator size per side
+     * @param featureWeights {@code INPUTS * hidden} weights, all of input 0's first
+     * @param featureBiases  {@code hidden} biases
+     * @param outputWeights  {@code 2 * hidden} weights, for the side to move's accumulator first
+     * @param outputBias     output bias, scaled by {@code QA * QB}
+     */
+    public Network(int hidden, short[] featureWeights, short[] featureBiases, short[] outputWeights,
+                   int outputBias) {
+        this(hidden, wrap(hidden, featureWeights, featureBiases, outputWeights), featureBiases, outputWeights,
+                outputBias);
+    }
+
+    private Network(int hidden, ShortBuffer featureWeights, short[] featureBiases, short[] outputWeights,
+                    int outputBias) {
+        this.hidden = hidden;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads a network file by mapping it into memory
+     *
+     * @throws IOException if the file can't be read or isn't a network
+     */
+    public static Network load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_BYTES || mapped.getLong(0) != MAGIC) {
+                throw new IOException(file + " is not a network file");
+            }
+            int hidden = mapped.getInt(8);
+            if (hidden < 1 || channel.size() != fileSize(hidden)) {
+                throw new IOException(file + " is the wrong size for a hidden size of " + hidden);
+            }
+            //The feature weights stay mapped; the few other weights are copied out
+            int weightBytes = INPUTS * hidden * Short.BYTES;
+            ShortBuffer featureWeights = mapped.slice(HEADER_BYTES, weightBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            short[] featureBiases = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            mapped.position(HEADER_BYTES + weightBytes);
+            mapped.asShortBuffer().get(featureBiases);
+            mapped.position(mapped.position() + featureBiases.length * Short.BYTES);
+            mapped.asShortBuffer().get(outputWeights);
+            mapped.position(mapped.position() + outputWeights.length * Short.BYTES);
+            return new Network(hidden, featureWeights, featureBiases, outputWeights, mapped.getInt());
+        }
+    }
+
+    /**
+     * Writes the network in the format {@link #load} reads
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(hidden));
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putLong(MAGIC).putInt(hidden);
+            mapped.asShortBuffer().put(featureWeights.duplicate().clear());
+            mapped.position(mapped.position() + INPUTS * hidden * Short.BYTES);
+            putShorts(mapped, featureBiases);
+            putShorts(mapped, outputWeights);
+            mapped.putInt(outputBias);
+            mapped.force();
+        }
+    }
+
+    /**
+     * @return the accumulator size per side
+     */
+    public int hidden() {
+        return hidden;
+    }
+
+    private static ShortBuffer wrap(int hidden, short[] featureWeights, short[] featureBiases,
+                                    short[] outputWeights) {
+        if (hidden < 1 || featureWeights.length != INPUTS * hidden || featureBiases.length != hidden
+                || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("Weight arrays don't match a hidden size of " + hidden);
+        }
+        return ShortBuffer.wrap(featureWeights);
+    }
+
+    private static long fileSize(int hidden) {
+        return HEADER_BYTES + ((long) INPUTS * hidden + hidden + 2L * hidden) * Short.BYTES + Integer.BYTES;
+    }
+
+    private static void putShorts(ByteBuffer buffer, short[] values) {
+        buffer.asShortBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Short.BYTES);
+    }
+}
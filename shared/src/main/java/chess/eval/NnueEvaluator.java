@@ -0,0 +1,128 @@
+package chess.eval;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Scores positions with a quantized {@link Network} (NNUE).
+ * <p>
+ * The accumulator, the first layer's output for white's view and black's,
+ * is kept between calls along with the pieces it was computed for. Each call
+ * compares those pieces with the board's and only adds and subtracts the
+ * weight rows of the pieces that changed, so a search evaluating one position
+ * after another a move or two apart updates a handful of rows instead of
+ * summing all of them. Any board can be evaluated; one far from the last just
+ * changes more rows.
+ * <p>
+ * The weight rows are read in place from the network's buffer, which for a
+ * loaded network is the mapped file itself, and summed into int32 arrays in
+ * simple counted loops. An
+ * evaluator allocates nothing once created and isn't thread safe, so use one
+ * per thread; the {@link Network} itself can be shared.
+ */
+public final class NnueEvaluator implements PositionEvaluator {
+
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final Network network;
+    private final int hidden;
+    //Indexed by TeamColor ordinal of the side whose view it is
+    private final short[][] accumulators;
+    //Bitboards the accumulators hold, indexed by color * 6 + PieceType ordinal
+    private final long[] pieces = new long[12];
+
+    public NnueEvaluator(Network network) {
+        this.network = network;
+        this.hidden = network.hidden();
+        this.accumulators = new short[2][hidden];
+        for (short[] accumulator : accumulators) {
+            System.arraycopy(network.featureBiases, 0, accumulator, 0, hidden);
+        }
+    }
+
+    /**
+     * @return the score from the point of view of the team to move, which the network is trained for
+     */
+    @Override
+    public int evaluate(ChessGame game) {
+        update(game.getBoard());
+        return output(game.getTeamTurn().ordinal());
+    }
+
+    @Override
+    public int evaluate(ChessBoard board) {
+        update(board);
+        return output(ChessGame.TeamColor.WHITE.ordinal());
+    }
+
+    private void update(ChessBoard board) {
+        for (ChessGame.TeamColor color : TEAMS) {
+            for (ChessPiece.PieceType type : TYPES) {
+                int index = color.ordinal() * 6 + type.ordinal();
+                long now = board.pieces(color, type);
+                long removed = pieces[index] & ~now;
+                long added = now & ~pieces[index];
+                pieces[index] = now;
+                while (removed != 0) {
+                    int square = Long.numberOfTrailingZeros(removed);
+                    removed &= removed - 1;
+                    subtract(accumulators[0], feature(0, color.ordinal(), type.ordinal(), square));
+                    subtract(accumulators[1], feature(1, color.ordinal(), type.ordinal(), square));
+                }
+                while (added != 0) {
+                    int square = Long.numberOfTrailingZeros(added);
+                    added &= added - 1;
+                    add(accumulators[0], feature(0, color.ordinal(), type.ordinal(), square));
+                    add(accumulators[1], feature(1, color.ordinal(), type.ordinal(), square));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the input a piece is, seen from one side
+     */
+    private static int feature(int view, int color, int type, int square) {
+        int own = color == view ? 0 : 6;
+        int relative = view == 0 ? square : square ^ 56;
+        return ((own + type) << 6) | relative;
+    }
+
+    private void add(short[] accumulator, int feature) {
+        ShortBuffer weights = network.featureWeights;
+        int offset = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] += weights.get(offset + i);
+        }
+    }
+
+    private void subtract(short[] accumulator, int feature) {
+        ShortBuffer weights = network.featureWeights;
+        int offset = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] -= weights.get(offset + i);
+        }
+    }
+
+    private int output(int toMove) {
+        short[] weights = network.outputWeights;
+        short[] us = accumulators[toMove];
+        short[] them = accumulators[toMove ^ 1];
+        int sum = 0;
+        for (int i = 0; i < hidden; i++) {
+            sum += clamp(us[i]) * weights[i];
+        }
+        for (int i = 0; i < hidden; i++) {
+            sum += clamp(them[i]) * weights[hidden + i];
+        }
+        return (int) ((sum + (long) network.outputBias) * Network.SCALE / (Network.QA * Network.QB));
+    }
+
+    private static int clamp(short value) {
+        return Math.min(Math.max(value, 0), Network.QA);
+    }
+}
@@ -0,0 +1,51 @@
+package chess.eval;
+
+/**
+ * Cache of pawn structure scores keyed by {@link chess.ChessBoard#pawnKey()}.
+ * <p>
+ * Pawns move far less often than the other pieces, so most positions a search
+ * evaluates share their pawns with one evaluated just before, and their score
+ * is read back instead of worked out again. Each key has one slot, and a new
+ * score simply replaces whatever was there. An empty slot holds key 0, which
+ * is also the key of a board without pawns, and score 0, which is its score.
+ */
+final class PawnTable {
+
+    static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    /**
+     * @param entries number of slots, a power of two
+     */
+    PawnTable(int entries) {
+        if (Integer.bitCount(entries) != 1) {
+            throw new IllegalArgumentException("Pawn table size must be a power of two");
+        }
+        this.keys = new long[entries];
+        this.scores = new int[entries];
+        this.mask = entries - 1;
+    }
+
+    /**
+     * @return true if the table holds a score for key
+     */
+    boolean contains(long key) {
+        return keys[(int) key & mask] == key;
+    }
+
+    /**
+     * @return the score stored for key, only meaningful after {@link #contains} returned true
+     */
+    int score(long key) {
+        return scores[(int) key & mask];
+    }
+
+    void store(long key, int score) {
+        int index = (int) key & mask;
+        keys[index] = key;
+        scores[index] = score;
+    }
+}
@@ -0,0 +1,140 @@
+package chess.eval;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Material and placement values of each piece on each square, for the
+ * middlegame and the endgame.
+ * <p>
+ * Both phase values are packed into one int, the endgame value in the high
+ * half and the middlegame value in the low half, so the {@link Evaluator}
+ * can keep the sum over all the pieces up to date with one addition or
+ * subtraction per piece moved. Values are in centipawns, positive for white.
+ */
+public final class PieceSquareTables {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    //Indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    static final int[] MIDDLEGAME_VALUES = {0, 1025, 365, 337, 477, 82};
+    static final int[] ENDGAME_VALUES = {0, 936, 297, 281, 512, 94};
+
+    //Tables are laid out as the board is seen from white's side, a8 first.
+    //Middlegame and endgame share a table except for the king and pawns.
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20};
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0};
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0};
+
+    //Packed values indexed by (color * 6 + PieceType ordinal) * 64 + square, as ChessBoard.squareScore takes them
+    static final int[] PACKED = new int[12 * 64];
+
+    static {
+        int[][] middlegame = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgame = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (ChessPiece.PieceType type : TYPES) {
+            int t = type.ordinal();
+            for (int square = 0; square < 64; square++) {
+                //White reads its table upside down, black reads it mirrored
+                int white = pack(MIDDLEGAME_VALUES[t] + middlegame[t][square ^ 56],
+                        ENDGAME_VALUES[t] + endgame[t][square ^ 56]);
+                int black = pack(MIDDLEGAME_VALUES[t] + middlegame[t][square],
+                        ENDGAME_VALUES[t] + endgame[t][square]);
+                PACKED[t * 64 + square] = white;
+                PACKED[(6 + t) * 64 + square] = -black;
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * @return the packed value of a piece standing on a 0-63 square
+     */
+    public static int value(ChessPiece piece, int square) {
+        int index = piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 0 : 6;
+        return PACKED[(index + piece.getPieceType().ordinal()) * 64 + square];
+    }
+
+    static int pack(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+
+    static int middlegame(int packed) {
+        return (short) packed;
+    }
+
+    static int endgame(int packed) {
+        return (short) ((packed + 0x8000) >> 16);
+    }
+}
@@ -0,0 +1,24 @@
+package chess.eval;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Scores positions in centipawns. Implementations may keep state between
+ * calls to make the next one cheaper, so use one instance per thread.
+ */
+public interface PositionEvaluator {
+
+    /**
+     * @return the score from white's point of view
+     */
+    int evaluate(ChessBoard board);
+
+    /**
+     * @return the score from the point of view of the team to move
+     */
+    default int evaluate(ChessGame game) {
+        int score = evaluate(game.getBoard());
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,266 @@
+package chess.perft;
+
+import chess.*;
+import chess.codec.Fen;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth (perft).
+ * Comparing the counts against known values checks the move generator, and
+ * timing them measures it.
+ * <p>
+ * The root moves are split across a {@link ForkJoinPool}, each worker walking
+ * its subtree on its own copy of the game with doMove/undoMove. Subtree counts
+ * can also be shared between workers through a Zobrist-keyed hash table, so
+ * positions reached by transposition are only counted once.
+ * <p>
+ * Run {@code main} with {@code --help} to use it from the command line.
+ */
+public final class Perft implements AutoCloseable {
+
+    //Deeper than any perft anyone will wait for
+    private static final int MAX_DEPTH = 32;
+
+    private final ForkJoinPool pool;
+    private final PerftHash hash;
+
+    /**
+     * The leaf count of a perft run and how long it took
+     */
+    public record Result(long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : (long) (nodes * 1e9 / nanos);
+        }
+    }
+
+    /**
+     * @param threads        number of worker threads the root moves are split across
+     * @param hashMegabytes  size of the subtree count table, or 0 to count every subtree
+     */
+    public Perft(int threads, int hashMegabytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Perft needs at least one thread");
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.hash = hashMegabytes > 0 ? new PerftHash(hashMegabytes) : null;
+    }
+
+    /**
+     * Counts the leaf nodes of a game's move tree, leaving the game unchanged
+     *
+     * @param game  position to count from, with the team to move taken from the game
+     * @param depth number of plies to search
+     * @return the node count and the time it took
+     */
+    public Result run(ChessGame game, int depth) {
+        long start = System.nanoTime();
+        long nodes = 0;
+        for (long count : divide(game, depth).values()) {
+            nodes += count;
+        }
+        if (depth == 0) {
+            nodes = 1;
+        }
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the leaf nodes under each root move separately, which narrows a
+     * wrong total down to the move whose subtree is off
+     *
+     * @return node count of each legal root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        checkDepth(depth);
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth == 0) {
+            return counts;
+        }
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+
+        List<Subtree> subtrees = new ArrayList<>(rootMoves.size());
+        for (int i = 0; i < rootMoves.size(); i++) {
+            Subtree subtree = new Subtree(new ChessGame(game), rootMoves.get(i), depth - 1, hash);
+            subtrees.add(subtree);
+            pool.execute(subtree);
+        }
+        for (Subtree subtree : subtrees) {
+            counts.put(MoveList.toChessMove(subtree.move), subtree.join());
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the leaf nodes of a game's move tree on the calling thread,
+     * without a hash table
+     */
+    public static long count(ChessGame game, int depth) {
+        checkDepth(depth);
+        return new Counter(null).count(game, depth);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth must be between 0 and " + MAX_DEPTH);
+        }
+    }
+
+    /**
+     * Walks a move tree depth first on one game, with a move list per ply so
+     * nothing is allocated once it is running
+     */
+    private static final class Counter {
+        private final PerftHash hash;
+        private final MoveList[] moveLists = new MoveList[MAX_DEPTH + 1];
+
+        Counter(PerftHash hash) {
+            this.hash = hash;
+            for (int i = 0; i < moveLists.length; i++) {
+                moveLists[i] = new MoveList();
+            }
+        }
+
+        long count(ChessGame game, int depth) {
+            if (depth == 0) {
+                return 1;
+            }
+            long key = 0;
+            if (hash != null && depth > 1) {
+                key = game.zobristKey();
+                long stored = hash.probe(key, depth);
+                if (stored >= 0) {
+                    return stored;
+                }
+            }
+
+            MoveList moves = moveLists[depth];
+            moves.clear();
+            game.legalMoves(moves);
+            //Every legal move is a leaf, no need to play them out
+            if (depth == 1) {
+                return moves.size();
+            }
+            long nodes = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                game.doMove(moves.get(i));
+                nodes += count(game, depth - 1);
+                game.undoMove();
+            }
+
+            if (hash != null) {
+                hash.store(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * The subtree under one root move, counted on its own copy of the game
+     */
+    private static final class Subtree extends RecursiveTask<Long> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        //Tasks are never serialized, so the game and table needn't be
+        private final transient ChessGame game;
+        private final int move;
+        private final int depth;
+        private final transient PerftHash hash;
+
+        Subtree(ChessGame game, int move, int depth, PerftHash hash) {
+            this.game = game;
+            this.move = move;
+            this.depth = depth;
+            this.hash = hash;
+        }
+
+        @Override
+        protected Long compute() {
+            game.doMove(move);
+            return new Counter(hash).count(game, depth);
+        }
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = 0;
+        String fen = Fen.START_POSITION;
+        boolean suite = false;
+        boolean divide = false;
+        Integer depth = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                    case "--fen" -> fen = args[++i];
+                    case "--suite" -> suite = true;
+                    case "--divide" -> divide = true;
+                    case "--help" -> {
+                        printUsage();
+                        return;
+                    }
+                    default -> depth = Integer.parseInt(args[i]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        try (Perft perft = new Perft(threads, hashMegabytes)) {
+            if (suite) {
+                boolean passed = PerftSuite.run(perft, depth == null ? PerftSuite.FULL_DEPTH : depth, System.out);
+                System.exit(passed ? 0 : 1);
+                return;
+            }
+
+            ChessGame game = Fen.parseGame(fen);
+            int plies = depth == null ? 5 : depth;
+            if (divide) {
+                long start = System.nanoTime();
+                long nodes = 0;
+                for (Map.Entry<ChessMove, Long> entry : perft.divide(game, plies).entrySet()) {
+                    System.out.println(entry.getKey() + ": " + entry.getValue());
+                    nodes += entry.getValue();
+                }
+                print(plies, new Result(nodes, System.nanoTime() - start));
+            } else {
+                print(plies, perft.run(game, plies));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static void print(int depth, Result result) {
+        System.out.printf("depth %d: %d nodes in %d ms (%,d nodes/s)%n", depth, result.nodes(),
+                result.nanos() / 1_000_000, result.nodesPerSecond());
+    }
+
+    private static void printUsage() {
+        System.out.println("""
+                usage: Perft [options] [depth]
+                  --fen <fen>      position to count from (placement and team to move), start position by default
+                  --divide         print the count under each root move
+                  --suite          check the standard suite positions up to depth instead
+                  --threads <n>    worker threads, one per processor by default
+                  --hash <mb>      share subtree counts through a table of this size, off by default""");
+    }
+}
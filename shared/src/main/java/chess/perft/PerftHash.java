@@ -0,0 +1,50 @@
+package chess.perft;
+
+/**
+ * Fixed-size table of subtree node counts keyed by Zobrist key and depth.
+ * <p>
+ * The table is shared by every perft worker without locking. Each entry is a
+ * pair of longs: the packed count and depth, and the key XORed with that data.
+ * A reader only accepts an entry whose two halves still XOR back to its key,
+ * so an entry torn by two threads writing at once reads as a miss rather than
+ * as a wrong count.
+ */
+final class PerftHash {
+
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    private final long[] checks;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param megabytes table size, rounded down to a power of two entries
+     */
+    PerftHash(int megabytes) {
+        long entries = Math.max(1L, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.checks = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return the stored node count of the position at depth, or -1 if there is none
+     */
+    long probe(long key, int depth) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        if ((checks[index] ^ entry) != key || (entry & DEPTH_MASK) != depth) {
+            return -1;
+        }
+        return entry >>> DEPTH_BITS;
+    }
+
+    void store(long key, int depth, long nodes) {
+        int index = (int) key & mask;
+        long entry = nodes << DEPTH_BITS | depth;
+        data[index] = entry;
+        checks[index] = key ^ entry;
+    }
+}
@@ -0,0 +1,75 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.codec.Fen;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * The standard perft test positions with their expected node counts.
+ * <p>
+ * The published counts include castling and en passant, which this game
+ * doesn't have, so the counts here are for the same positions without them.
+ * They only differ from the published ones where those moves appear in the tree.
+ */
+public final class PerftSuite {
+
+    /**
+     * Depth the whole suite is checked to by default
+     */
+    public static final int FULL_DEPTH = 5;
+
+    /**
+     * A suite position and its node counts, starting at depth 1
+     */
+    public record Position(String name, String fen, long... nodes) {
+        public int maxDepth() {
+            return nodes.length;
+        }
+    }
+
+    public static final List<Position> POSITIONS = List.of(
+            new Position("start", Fen.START_POSITION,
+                    20, 400, 8902, 197281, 4865351),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w",
+                    46, 1865, 86585),
+            new Position("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w",
+                    14, 191, 2810),
+            new Position("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w",
+                    6, 258, 9217),
+            new Position("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w",
+                    43, 1452, 59922)
+    );
+
+    private PerftSuite() {
+    }
+
+    /**
+     * Counts every suite position at each depth it has a count for, up to maxDepth,
+     * printing each result with its speed
+     *
+     * @return true if every count matched
+     */
+    public static boolean run(Perft perft, int maxDepth, PrintStream out) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (Position position : POSITIONS) {
+            ChessGame game = Fen.parseGame(position.fen());
+            for (int depth = 1; depth <= Math.min(maxDepth, position.maxDepth()); depth++) {
+                long expected = position.nodes()[depth - 1];
+                Perft.Result result = perft.run(game, depth);
+                boolean matched = result.nodes() == expected;
+                passed &= matched;
+                totalNodes += result.nodes();
+                totalNanos += result.nanos();
+                out.printf("%-12s depth %d: %12d %s (%,d nodes/s)%n", position.name(), depth, result.nodes(),
+                        matched ? "ok" : "FAILED, expected " + expected, result.nodesPerSecond());
+            }
+        }
+        out.printf("%s: %d nodes, %,d nodes/s%n", passed ? "passed" : "FAILED", totalNodes,
+                new Perft.Result(totalNodes, totalNanos).nodesPerSecond());
+        return passed;
+    }
+}
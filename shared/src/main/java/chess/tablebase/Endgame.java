@@ -0,0 +1,130 @@
+package chess.tablebase;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.util.List;
+
+/**
+ * The piece sets there are tables for: a lone king against a king and one or
+ * two other pieces.
+ * <p>
+ * Tables are built with the side that has the extra pieces as white. A
+ * position is indexed by the team to move, the white king's square, the black
+ * king's square and the square of each extra piece, 64 squares each, so a
+ * table holds {@code 2 * 64^(2 + pieces)} positions. Positions with black as the
+ * stronger side are looked up mirrored top to bottom with the colors swapped.
+ */
+public enum Endgame {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT),
+    KPK(ChessPiece.PieceType.PAWN);
+
+    private final List<ChessPiece.PieceType> pieces;
+
+    Endgame(ChessPiece.PieceType... pieces) {
+        this.pieces = List.of(pieces);
+    }
+
+    /**
+     * @return the stronger side's pieces other than its king
+     */
+    public List<ChessPiece.PieceType> pieces() {
+        return pieces;
+    }
+
+    /**
+     * @return number of positions in the table, legal or not
+     */
+    public int size() {
+        return 2 << (6 * (2 + pieces.size()));
+    }
+
+    /**
+     * @return the other tables a move in this one can lead to, by promotion
+     */
+    List<Endgame> dependencies() {
+        return this == KPK ? List.of(KQK, KRK) : List.of();
+    }
+
+    /**
+     * Finds the table a board belongs in
+     *
+     * @return the table, or null if the board's pieces don't match one
+     */
+    static Endgame of(ChessBoard board) {
+        ChessGame.TeamColor strong = strongerSide(board);
+        for (Endgame endgame : values()) {
+            if (endgame.matches(board, strong)) {
+                return endgame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the team with more pieces, white when they are even
+     */
+    static ChessGame.TeamColor strongerSide(ChessBoard board) {
+        return Long.bitCount(board.pieces(ChessGame.TeamColor.BLACK))
+                > Long.bitCount(board.pieces(ChessGame.TeamColor.WHITE))
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private boolean matches(ChessBoard board, ChessGame.TeamColor strong) {
+        ChessGame.TeamColor weak = opponent(strong);
+        if (Long.bitCount(board.pieces(strong)) != pieces.size() + 1 || Long.bitCount(board.pieces(weak)) != 1
+                || board.kingSquare(strong) < 0 || board.kingSquare(weak) < 0) {
+            return false;
+        }
+        for (ChessPiece.PieceType type : pieces) {
+            if (board.pieces(strong, type) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indexes a board holding this table's pieces
+     *
+     * @param toMove team whose turn it is
+     */
+    int index(ChessBoard board, ChessGame.TeamColor toMove) {
+        ChessGame.TeamColor strong = strongerSide(board);
+        //Mirroring top to bottom keeps pawns moving up the board when the colors swap
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        int index = toMove == strong ? 0 : 1;
+        index = index << 6 | (board.kingSquare(strong) ^ flip);
+        index = index << 6 | (board.kingSquare(opponent(strong)) ^ flip);
+        for (ChessPiece.PieceType type : pieces) {
+            index = index << 6 | (Long.numberOfTrailingZeros(board.pieces(strong, type)) ^ flip);
+        }
+        return index;
+    }
+
+    /**
+     * @return the team to move in an indexed position
+     */
+    ChessGame.TeamColor toMove(int index) {
+        return (index >>> (6 * (2 + pieces.size()))) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * Gets the squares of an indexed position: white king, black king, then
+     * each extra piece in {@link #pieces()} order
+     */
+    void squares(int index, int[] squares) {
+        int count = 2 + pieces.size();
+        for (int i = count - 1; i >= 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+    }
+
+    static ChessGame.TeamColor opponent(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,143 @@
+package chess.tablebase;
+
+import chess.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Endgame tables written by {@link TablebaseGenerator}, memory-mapped for
+ * lookups. Probing reads one byte from the mapped file, so the tables can be
+ * shared by any number of threads and the operating system only pages in the
+ * parts that are used.
+ * <p>
+ * Results count plies to checkmate and leave out the fifty-move rule.
+ */
+public final class Tablebase {
+
+    private final Map<Endgame, ByteBuffer> tables;
+
+    private Tablebase(Map<Endgame, ByteBuffer> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Maps every table file in a directory. Endgames without a file are left out.
+     *
+     * @throws IOException if a file can't be read or isn't a table
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<Endgame, ByteBuffer> tables = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            Path file = file(directory, endgame);
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() != TablebaseGenerator.HEADER_BYTES + (long) endgame.size()) {
+                    throw new IOException(file + " is the wrong size for " + endgame);
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                byte[] name = new byte[8];
+                mapped.get(8, name);
+                if (mapped.getLong(0) != TablebaseGenerator.MAGIC
+                        || !new String(name, StandardCharsets.US_ASCII).trim().equals(endgame.name())) {
+                    throw new IOException(file + " is not a table for " + endgame);
+                }
+                tables.put(endgame, mapped.slice(TablebaseGenerator.HEADER_BYTES, endgame.size()));
+            }
+        }
+        return new Tablebase(tables);
+    }
+
+    static Path file(Path directory, Endgame endgame) {
+        return directory.resolve(endgame.name() + ".tb");
+    }
+
+    /**
+     * @return the endgames this tablebase has tables for
+     */
+    public Set<Endgame> endgames() {
+        return tables.keySet();
+    }
+
+    /**
+     * Looks up a position. Positions where neither side has mating material
+     * are draws without a table.
+     *
+     * @param toMove team whose turn it is
+     * @return the result for the team to move, or null if there is no table for the position
+     */
+    public TablebaseResult probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        Endgame endgame = Endgame.of(board);
+        if (endgame == null) {
+            return isInsufficient(board) ? TablebaseResult.DRAW : null;
+        }
+        ByteBuffer table = tables.get(endgame);
+        if (table == null) {
+            return null;
+        }
+        return TablebaseResult.decode(table.get(endgame.index(board, toMove)) & 0xFF);
+    }
+
+    /**
+     * Looks up a game's position for the team whose turn it is
+     */
+    public TablebaseResult probe(ChessGame game) {
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Picks the move that mates fastest in a won position, holds a drawn one,
+     * or holds out longest in a lost one
+     *
+     * @return the move, or null if the game has no legal moves or the
+     * position or some move out of it isn't covered
+     */
+    public ChessMove bestMove(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        ChessGame copy = new ChessGame(game);
+        int best = 0;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            copy.doMove(moves.get(i));
+            TablebaseResult reply = probe(copy);
+            copy.undoMove();
+            if (reply == null) {
+                return null;
+            }
+            int rank = switch (reply.wdl()) {
+                case LOSS -> 1000 - reply.plies();
+                case DRAW -> 0;
+                case WIN -> reply.plies() - 1000;
+            };
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves.get(i);
+            }
+        }
+        return bestRank == Integer.MIN_VALUE ? null : MoveList.toChessMove(best);
+    }
+
+    /**
+     * @return true if neither side can force mate: bare kings, or kings and one bishop or knight
+     */
+    static boolean isInsufficient(ChessBoard board) {
+        long occupied = board.occupied();
+        long minors = 0;
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            minors |= board.pieces(team, ChessPiece.PieceType.BISHOP) | board.pieces(team, ChessPiece.PieceType.KNIGHT);
+        }
+        return Long.bitCount(occupied) <= 3 && Long.bitCount(occupied) - Long.bitCount(minors) == 2;
+    }
+}
@@ -0,0 +1,392 @@
+package chess.tablebase;
+
+import chess.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Builds endgame tables by retrograde analysis.
+ * <p>
+ * A first pass plays every move of every legal position with the normal
+ * move rules, to find the checkmates and stalemates, count each position's
+ * moves that stay in the table, and settle moves that leave it (captures,
+ * which leave too little material to mate, and promotions, which are looked
+ * up in the table they lead to). Results then spread backwards one ply at a
+ * time: a position one move away from a loss in n plies is a win in n + 1,
+ * and a position whose moves all lead to wins for the other side is lost once
+ * the last of them is found. Each pass is split across the worker threads.
+ * Whatever is left unsettled at the end is a draw.
+ * <p>
+ * Tables are written one file per {@link Endgame}, read with {@link Tablebase}.
+ */
+public final class TablebaseGenerator implements AutoCloseable {
+
+    static final long MAGIC = 0x4348455353544231L;
+    static final int HEADER_BYTES = 16;
+
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+    //Exit value of a position with a move out of the table that doesn't lose
+    private static final int NEVER_LOST = 0xFF;
+
+    private final ForkJoinPool pool;
+    private final Map<Endgame, byte[]> tables = new EnumMap<>(Endgame.class);
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param threads number of threads each pass is split across
+     */
+    public TablebaseGenerator(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Builds a table, and first any table its promotions lead to. Tables are
+     * kept, so each is only built once per generator.
+     *
+     * @return the table's results, one byte per position
+     */
+    public byte[] generate(Endgame endgame) {
+        byte[] table = tables.get(endgame);
+        if (table == null) {
+            for (Endgame dependency : endgame.dependencies()) {
+                generate(dependency);
+            }
+            table = new Build(endgame).run();
+            tables.put(endgame, table);
+        }
+        return table;
+    }
+
+    /**
+     * Builds a table if needed and writes it to a directory
+     *
+     * @return the file written
+     */
+    public Path write(Endgame endgame, Path directory) throws IOException {
+        byte[] table = generate(endgame);
+        Path file = Tablebase.file(directory, endgame);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putLong(MAGIC);
+        byte[] name = endgame.name().getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        header.put(name, 0, Math.min(name.length, 8));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(header.array());
+            out.write(table);
+        }
+        return file;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private void forEachIndex(int size, IntConsumer action) {
+        pool.submit(() -> IntStream.range(0, size).parallel().forEach(action)).join();
+    }
+
+    /**
+     * Result of a position after a move out of the table being built
+     */
+    private int exitValue(ChessBoard board, ChessGame.TeamColor toMove) {
+        Endgame endgame = Endgame.of(board);
+        if (endgame != null) {
+            return tables.get(endgame)[endgame.index(board, toMove)] & 0xFF;
+        }
+        if (Tablebase.isInsufficient(board)) {
+            return 0;
+        }
+        throw new IllegalStateException("No table for a position reached by a move");
+    }
+
+    /**
+     * The working state of one table being built
+     */
+    private final class Build {
+        private final Endgame endgame;
+        private final int size;
+        private final byte[] values;
+        //Moves each position has left that stay in the table and aren't known to lose
+        private final byte[] counters;
+        //Longest mate the other side has after a move out of the table, or NEVER_LOST
+        private final byte[] exitLosses;
+        //Deepest ply settled by the first pass or ahead of its turn
+        private final AtomicInteger furthestSettled = new AtomicInteger();
+
+        Build(Endgame endgame) {
+            this.endgame = endgame;
+            this.size = endgame.size();
+            this.values = new byte[size];
+            this.counters = new byte[size];
+            this.exitLosses = new byte[size];
+        }
+
+        byte[] run() {
+            forEachIndex(size, this::classify);
+            int lastChange = 0;
+            for (int plies = 1; plies <= lastChange + 2 || plies <= furthestSettled.get() + 1; plies++) {
+                if (plies > TablebaseResult.MAX_PLIES) {
+                    throw new IllegalStateException(endgame + " has mates too long to store");
+                }
+                AtomicInteger changes = new AtomicInteger();
+                int target = (plies & 1) == 1
+                        ? TablebaseResult.encodeLoss(plies - 1)
+                        : TablebaseResult.encodeWin(plies - 1);
+                int ply = plies;
+                forEachIndex(size, index -> {
+                    if ((values[index] & 0xFF) == target) {
+                        changes.addAndGet(retract(index, ply));
+                    }
+                });
+                if (changes.get() > 0) {
+                    lastChange = plies;
+                }
+            }
+            return values;
+        }
+
+        /**
+         * First pass over one position
+         */
+        private void classify(int index) {
+            Scratch work = scratch.get();
+            if (!work.setUp(endgame, index)) {
+                return;
+            }
+            ChessGame game = work.game;
+            ChessBoard board = work.board;
+            ChessGame.TeamColor toMove = game.getTeamTurn();
+            MoveList moves = work.moves;
+            moves.clear();
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                values[index] = (byte) (game.isInCheck(toMove) ? TablebaseResult.encodeLoss(0) : 0);
+                return;
+            }
+
+            int inTable = 0;
+            int fastestWin = Integer.MAX_VALUE;
+            int longestLoss = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (board.getPiece(MoveList.to(move)) == null && MoveList.promotion(move) == null) {
+                    inTable++;
+                    continue;
+                }
+                game.doMove(move);
+                TablebaseResult exit = TablebaseResult.decode(exitValue(board, game.getTeamTurn()));
+                game.undoMove();
+                switch (exit.wdl()) {
+                    case LOSS -> fastestWin = Math.min(fastestWin, exit.plies() + 1);
+                    case WIN -> longestLoss = Math.max(longestLoss, exit.plies() + 1);
+                    case DRAW -> longestLoss = NEVER_LOST;
+                }
+            }
+
+            counters[index] = (byte) inTable;
+            exitLosses[index] = (byte) longestLoss;
+            if (fastestWin != Integer.MAX_VALUE) {
+                //Kept unless a move inside the table mates sooner
+                values[index] = (byte) TablebaseResult.encodeWin(fastestWin);
+                furthestSettled.accumulateAndGet(fastestWin, Math::max);
+            } else if (inTable == 0 && longestLoss != NEVER_LOST) {
+                values[index] = (byte) TablebaseResult.encodeLoss(longestLoss);
+                furthestSettled.accumulateAndGet(longestLoss, Math::max);
+            }
+        }
+
+        /**
+         * Settles the positions one move before a position settled at plies - 1
+         *
+         * @return number of positions settled
+         */
+        private int retract(int index, int plies) {
+            Scratch work = scratch.get();
+            work.setUp(endgame, index);
+            ChessBoard board = work.board;
+            ChessGame game = work.game;
+            ChessGame.TeamColor toMove = game.getTeamTurn();
+            ChessGame.TeamColor mover = Endgame.opponent(toMove);
+            boolean win = (plies & 1) == 1;
+
+            int settled = 0;
+            long occupied = board.occupied();
+            long pieces = board.pieces(mover);
+            while (pieces != 0) {
+                int to = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                ChessPiece piece = board.getPiece(to);
+                long origins = origins(piece, to, occupied);
+                while (origins != 0) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    board.addPiece(to, null);
+                    board.addPiece(from, piece);
+                    game.setTeamTurn(mover);
+                    if (!game.isInCheck(toMove)) {
+                        int previous = endgame.index(board, mover);
+                        settled += win ? settleWin(previous, plies) : settleLoss(previous, plies);
+                    }
+                    board.addPiece(from, null);
+                    board.addPiece(to, piece);
+                }
+            }
+            game.setTeamTurn(toMove);
+            return settled;
+        }
+
+        private int settleWin(int index, int plies) {
+            int value = values[index] & 0xFF;
+            if (value == 0 || ((value & TablebaseResult.LOSS_FLAG) == 0 && value > plies)) {
+                values[index] = (byte) TablebaseResult.encodeWin(plies);
+                return 1;
+            }
+            return 0;
+        }
+
+        private int settleLoss(int index, int plies) {
+            if (values[index] != 0) {
+                return 0;
+            }
+            byte left = (byte) ((byte) COUNTERS.getAndAdd(counters, index, (byte) -1) - 1);
+            int exitLoss = exitLosses[index] & 0xFF;
+            if (left != 0 || exitLoss == NEVER_LOST) {
+                return 0;
+            }
+            int lost = Math.max(plies, exitLoss);
+            values[index] = (byte) TablebaseResult.encodeLoss(lost);
+            furthestSettled.accumulateAndGet(lost, Math::max);
+            return 1;
+        }
+    }
+
+    /**
+     * @return the empty squares a piece now on square could have moved from, without capturing
+     */
+    private static long origins(ChessPiece piece, int square, long occupied) {
+        long empty = ~occupied;
+        return switch (piece.getPieceType()) {
+            case KING -> Bitboards.kingAttacks(square) & empty;
+            case QUEEN -> Bitboards.queenAttacks(square, occupied) & empty;
+            case BISHOP -> Bitboards.bishopAttacks(square, occupied) & empty;
+            case KNIGHT -> Bitboards.knightAttacks(square) & empty;
+            case ROOK -> Bitboards.rookAttacks(square, occupied) & empty;
+            case PAWN -> pawnOrigins(piece.getTeamColor(), square, empty);
+        };
+    }
+
+    private static long pawnOrigins(ChessGame.TeamColor color, int square, long empty) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int back = white ? square - 8 : square + 8;
+        //A pawn never stands on its own back rank
+        long homeRank = white ? Bitboards.RANK_1 : Bitboards.RANK_8;
+        if (back < 0 || back > 63 || ((1L << back) & (empty & ~homeRank)) == 0) {
+            return 0L;
+        }
+        long origins = 1L << back;
+        long doubleRank = white ? Bitboards.RANK_2 << 16 : Bitboards.RANK_7 >>> 16;
+        int doubleBack = white ? back - 8 : back + 8;
+        if (((1L << square) & doubleRank) != 0 && ((1L << doubleBack) & empty) != 0) {
+            origins |= 1L << doubleBack;
+        }
+        return origins;
+    }
+
+    /**
+     * A board and game per thread that indexed positions are set up on
+     */
+    private static final class Scratch {
+        private static final ChessPiece WHITE_KING = ChessPiece.of(ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.KING);
+        private static final ChessPiece BLACK_KING = ChessPiece.of(ChessGame.TeamColor.BLACK,
+                ChessPiece.PieceType.KING);
+
+        private final ChessBoard board = new ChessBoard();
+        private final ChessGame game = new ChessGame();
+        private final MoveList moves = new MoveList();
+        private final int[] squares = new int[4];
+
+        Scratch() {
+            game.setBoard(board);
+        }
+
+        /**
+         * Sets up an indexed position
+         *
+         * @return false if the position is illegal, and then the board may be left half set up
+         */
+        boolean setUp(Endgame endgame, int index) {
+            List<ChessPiece.PieceType> pieces = endgame.pieces();
+            int count = 2 + pieces.size();
+            endgame.squares(index, squares);
+            long placed = 0;
+            for (int i = 0; i < count; i++) {
+                long bit = 1L << squares[i];
+                if ((placed & bit) != 0) {
+                    return false;
+                }
+                placed |= bit;
+            }
+            for (int i = 2; i < count; i++) {
+                if (pieces.get(i - 2) == ChessPiece.PieceType.PAWN
+                        && ((1L << squares[i]) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                    return false;
+                }
+            }
+
+            long stale = board.occupied();
+            while (stale != 0) {
+                int square = Long.numberOfTrailingZeros(stale);
+                stale &= stale - 1;
+                board.addPiece(square, null);
+            }
+            board.addPiece(squares[0], WHITE_KING);
+            board.addPiece(squares[1], BLACK_KING);
+            for (int i = 2; i < count; i++) {
+                board.addPiece(squares[i], ChessPiece.of(ChessGame.TeamColor.WHITE, pieces.get(i - 2)));
+            }
+            ChessGame.TeamColor toMove = endgame.toMove(index);
+            game.setTeamTurn(toMove);
+            return !game.isInCheck(Endgame.opponent(toMove));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: TablebaseGenerator <directory> [endgame...]");
+            System.exit(2);
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        List<Endgame> endgames = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            endgames.add(Endgame.valueOf(args[i].toUpperCase()));
+        }
+        if (endgames.isEmpty()) {
+            endgames.addAll(List.of(Endgame.values()));
+        }
+
+        try (TablebaseGenerator generator = new TablebaseGenerator(Runtime.getRuntime().availableProcessors())) {
+            for (Endgame endgame : endgames) {
+                long start = System.nanoTime();
+                Path file = generator.write(endgame, directory);
+                System.out.printf("%s: %s in %d ms%n", endgame, file, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package chess.tablebase;
+
+/**
+ * The perfect-play result of a position for the team to move
+ *
+ * @param wdl   whether the team to move wins, draws or loses
+ * @param plies plies until checkmate when both sides play the fastest mate or
+ *              the longest defence, 0 for a draw or for being checkmated already
+ */
+public record TablebaseResult(Wdl wdl, int plies) {
+
+    public enum Wdl {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    static final TablebaseResult DRAW = new TablebaseResult(Wdl.DRAW, 0);
+
+    //A table stores each position's result in one byte: 0 for a draw, the plies
+    //for a win (always odd) and LOSS_FLAG plus the plies for a loss (always even)
+    static final int LOSS_FLAG = 0x80;
+    static final int MAX_PLIES = 0x7F;
+
+    static int encodeWin(int plies) {
+        return plies;
+    }
+
+    static int encodeLoss(int plies) {
+        return LOSS_FLAG | plies;
+    }
+
+    static TablebaseResult decode(int value) {
+        if (value == 0) {
+            return DRAW;
+        }
+        if ((value & LOSS_FLAG) != 0) {
+            return new TablebaseResult(Wdl.LOSS, value & MAX_PLIES);
+        }
+        return new TablebaseResult(Wdl.WIN, value);
+    }
+}
@@ -0,0 +1,56 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackMapTest {
+
+    @Test
+    @DisplayName("Start Position Attacks")
+    public void startPosition() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        //Every square of the third and sixth ranks, and nothing past them
+        assertEquals(0xFFL << 16, board.attacks(ChessGame.TeamColor.WHITE) & (0xFFFFL << 16));
+        assertEquals(0xFFL << 40, board.attacks(ChessGame.TeamColor.BLACK) & (0xFFFFL << 32));
+        assertFalse(board.isAttacked(Bitboards.square(4, 1), ChessGame.TeamColor.WHITE));
+        assertTrue(board.isAttacked(Bitboards.square(3, 1), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Sliders Stop At Blockers")
+    public void blockers() {
+        ChessBoard board = Fen.parseGame("4k3/8/8/8/8/8/8/R1N1K3 w").getBoard();
+        assertTrue(board.isAttacked(Bitboards.square(1, 2), ChessGame.TeamColor.WHITE));
+        assertTrue(board.isAttacked(Bitboards.square(1, 3), ChessGame.TeamColor.WHITE));
+        assertTrue(board.isAttacked(Bitboards.square(8, 1), ChessGame.TeamColor.WHITE));
+        assertFalse(board.isAttacked(Bitboards.square(8, 8), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Incremental Maps Match A Rebuilt Board")
+    public void incremental() {
+        Random random = new Random(3);
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 80; ply++) {
+            moves.clear();
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+            if (ply % 7 == 6) {
+                game.undoMove();
+            }
+            ChessBoard rebuilt = new ChessBoard(game.getBoard());
+            for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                assertEquals(rebuilt.attacks(team), game.getBoard().attacks(team));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DoMoveTest {
+
+    private static final String[] POSITIONS = {
+            Fen.START_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b",
+    };
+
+    @Test
+    @DisplayName("Undo Restores The Position")
+    public void undoRestores() {
+        Random random = new Random(11);
+        MoveList moves = new MoveList();
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parseGame(fen);
+            ChessGame start = new ChessGame(game);
+            int played = 0;
+            for (; played < 40; played++) {
+                moves.clear();
+                game.legalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+            }
+            for (int i = 0; i < played; i++) {
+                game.undoMove();
+            }
+            assertEquals(start, game, fen);
+            assertEquals(start.getTeamTurn(), game.getTeamTurn(), fen);
+            assertThrows(IllegalStateException.class, game::undoMove);
+        }
+    }
+
+    @Test
+    @DisplayName("Captures Undo To The Captured Piece")
+    public void captureUndo() {
+        ChessGame game = Fen.parseGame("4k3/8/8/3q4/8/8/3R4/4K3 w");
+        ChessGame start = new ChessGame(game);
+        game.doMove(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(5, 4), null));
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(ChessPosition.of(5, 4)));
+        game.undoMove();
+        assertEquals(start, game);
+    }
+
+    @Test
+    @DisplayName("Promotions Undo To Pawns")
+    public void promotionUndo() {
+        ChessGame game = Fen.parseGame("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N w");
+        ChessGame start = new ChessGame(game);
+        game.doMove(ChessMove.of(ChessPosition.of(7, 2), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                game.getBoard().getPiece(ChessPosition.of(8, 1)));
+        game.undoMove();
+        assertEquals(start, game);
+    }
+}
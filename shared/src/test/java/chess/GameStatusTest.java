@@ -0,0 +1,66 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStatusTest {
+
+    @Test
+    @DisplayName("Normal")
+    public void normal() {
+        ChessGame game = new ChessGame();
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.WHITE));
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Check")
+    public void check() {
+        ChessGame game = Fen.parseGame("4k3/8/8/8/8/8/8/R3K3 b");
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.BLACK));
+        game = Fen.parseGame("4k3/8/8/8/8/8/8/4K2R b");
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.BLACK));
+        game = Fen.parseGame("4k3/8/8/8/8/8/8/4R1K1 b");
+        assertEquals(ChessGame.GameStatus.CHECK, game.status(ChessGame.TeamColor.BLACK));
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Checkmate")
+    public void checkmate() {
+        ChessGame game = Fen.parseGame("R5k1/5ppp/8/8/8/8/8/6K1 b");
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.status(ChessGame.TeamColor.BLACK));
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Stalemate")
+    public void stalemate() {
+        ChessGame game = Fen.parseGame("7k/5Q2/6K1/8/8/8/8/8 b");
+        assertEquals(ChessGame.GameStatus.STALEMATE, game.status(ChessGame.TeamColor.BLACK));
+        assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Status Agrees With The Separate Checks")
+    public void agreesWithChecks() {
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w",
+                "R5k1/5ppp/8/8/8/8/8/6K1 b",
+                "7k/5Q2/6K1/8/8/8/8/8 b",
+                "4k3/8/8/8/8/8/8/4R1K1 b",
+        };
+        for (String fen : positions) {
+            ChessGame game = Fen.parseGame(fen);
+            for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                ChessGame.GameStatus status = game.status(team);
+                assertEquals(game.isInCheckmate(team), status == ChessGame.GameStatus.CHECKMATE, fen);
+                assertEquals(game.isInStalemate(team), status == ChessGame.GameStatus.STALEMATE, fen);
+                assertEquals(game.isInCheck(team), status == ChessGame.GameStatus.CHECK
+                        || status == ChessGame.GameStatus.CHECKMATE, fen);
+            }
+        }
+    }
+}
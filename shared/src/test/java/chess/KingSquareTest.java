@@ -0,0 +1,60 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KingSquareTest {
+
+    @Test
+    @DisplayName("Kings Are Found")
+    public void kings() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        assertEquals(Bitboards.square(1, 5), board.kingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(Bitboards.square(8, 5), board.kingSquare(ChessGame.TeamColor.BLACK));
+
+        board.addPiece(ChessPosition.of(8, 5), null);
+        assertEquals(-1, board.kingSquare(ChessGame.TeamColor.BLACK));
+        board.addPiece(ChessPosition.of(4, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        assertEquals(Bitboards.square(4, 4), board.kingSquare(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Piece Sets Follow The Moves")
+    public void pieceSets() {
+        Random random = new Random(4);
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 80; ply++) {
+            moves.clear();
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+            ChessBoard board = game.getBoard();
+            ChessBoard rebuilt = new ChessBoard(board);
+            assertEquals(rebuilt.occupied(), board.occupied());
+            for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                assertEquals(rebuilt.kingSquare(team), board.kingSquare(team));
+                assertEquals(rebuilt.pieces(team), board.pieces(team));
+                for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                    assertEquals(rebuilt.pieces(team, type), board.pieces(team, type));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positions Without A King")
+    public void noKing() {
+        ChessGame game = Fen.parseGame("8/8/8/8/8/8/4P3/8 w");
+        assertEquals(-1, game.getBoard().kingSquare(ChessGame.TeamColor.WHITE));
+        assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+        assertFalse(game.validMoves(ChessPosition.of(2, 5)).isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveStreamTest {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b",
+    };
+
+    @Test
+    @DisplayName("Streams The Same Moves As Legal Moves")
+    public void sameMoves() {
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parseGame(fen);
+            assertEquals(legalMoves(game), game.packedMoveStream(game.getTeamTurn(), -1L, -1L)
+                    .boxed().collect(Collectors.toSet()), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Streams A Piece's Valid Moves")
+    public void pieceMoves() {
+        ChessGame game = Fen.parseGame(POSITIONS[3]);
+        for (int square = 0; square < 64; square++) {
+            ChessPosition position = ChessPosition.of(square);
+            if (game.getBoard().getPiece(position) != null) {
+                assertEquals(new HashSet<>(game.validMoves(position)),
+                        game.legalMoveStream(position).collect(Collectors.toSet()));
+            }
+        }
+        assertEquals(0, game.legalMoveStream(ChessPosition.of(4, 4)).count());
+    }
+
+    @Test
+    @DisplayName("Streams Only Captures")
+    public void captures() {
+        ChessGame game = Fen.parseGame(POSITIONS[1]);
+        ChessBoard board = game.getBoard();
+        List<ChessMove> captures = game.legalCaptureStream().toList();
+        assertEquals(8, captures.size());
+        for (ChessMove capture : captures) {
+            assertNotNull(board.getPiece(capture.getEndPosition()));
+        }
+    }
+
+    @Test
+    @DisplayName("Stops Early")
+    public void stopsEarly() {
+        ChessGame game = new ChessGame();
+        assertEquals(3, game.legalMoveStream().limit(3).count());
+        assertTrue(game.legalMoveStream().findFirst().isPresent());
+        assertFalse(Fen.parseGame("7k/5Q2/6K1/8/8/8/8/8 b").legalMoveStream().findAny().isPresent());
+    }
+
+    @Test
+    @DisplayName("Works Without A King")
+    public void withoutKing() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+        assertEquals(legalMoves(game), game.packedMoveStream(ChessGame.TeamColor.WHITE, -1L, -1L)
+                .boxed().collect(Collectors.toSet()));
+        assertEquals(14, game.legalMoveStream().count());
+    }
+
+    private static Set<Integer> legalMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        Set<Integer> set = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            set.add(moves.get(i));
+        }
+        return set;
+    }
+}
@@ -0,0 +1,98 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveCacheTest {
+
+    private ChessGame game;
+
+    @BeforeEach
+    public void setUp() {
+        game = new ChessGame();
+        //Fill both teams' caches before each change
+        assertFresh();
+    }
+
+    @Test
+    @DisplayName("setBoard Drops Cached Moves")
+    public void setBoard() {
+        game.setBoard(Fen.parseGame("4k3/8/8/8/8/4p3/4P3/4K3 w").getBoard());
+        assertTrue(game.validMoves(ChessPosition.of(2, 5)).isEmpty());
+        assertFresh();
+
+        //A fresh board with the same pieces as the cached one
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        assertEquals(2, game.validMoves(ChessPosition.of(2, 5)).size());
+        assertFresh();
+    }
+
+    @Test
+    @DisplayName("setTeamTurn Keeps Moves Right")
+    public void setTeamTurn() {
+        game.setBoard(Fen.parseGame("R5k1/5ppp/8/8/8/8/8/6K1 w").getBoard());
+        assertFresh();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        assertFresh();
+    }
+
+    @Test
+    @DisplayName("makeMove Refreshes Moves")
+    public void makeMove() throws InvalidMoveException {
+        assertTrue(game.validMoves(ChessPosition.of(1, 6)).isEmpty());
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertFresh();
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        assertEquals(5, game.validMoves(ChessPosition.of(1, 6)).size());
+        assertFresh();
+    }
+
+    @Test
+    @DisplayName("doMove And undoMove Refresh Moves")
+    public void doAndUndo() {
+        game.doMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertFalse(game.validMoves(ChessPosition.of(1, 6)).isEmpty());
+        assertFresh();
+        game.undoMove();
+        assertTrue(game.validMoves(ChessPosition.of(1, 6)).isEmpty());
+        assertFresh();
+    }
+
+    @Test
+    @DisplayName("Editing The Board Refreshes Moves")
+    public void boardEdit() {
+        game.getBoard().addPiece(ChessPosition.of(3, 5), ChessPiece.of(ChessGame.TeamColor.BLACK,
+                ChessPiece.PieceType.KNIGHT));
+        assertTrue(game.validMoves(ChessPosition.of(2, 5)).isEmpty());
+        assertFresh();
+    }
+
+    /**
+     * Checks every move query against a game that has never cached anything
+     */
+    private void assertFresh() {
+        ChessGame fresh = Fen.parseGame(Fen.toFen(game));
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                if (game.getBoard().getPiece(position) != null) {
+                    assertEquals(new HashSet<>(fresh.validMoves(position)), new HashSet<>(game.validMoves(position)),
+                            position.toString());
+                }
+            }
+        }
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            assertEquals(fresh.isInCheckmate(team), game.isInCheckmate(team));
+            assertEquals(fresh.isInStalemate(team), game.isInStalemate(team));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package chess;
+
+import chess.codec.Fen;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionHistoryTest {
+
+    @Test
+    @DisplayName("Knight Shuffle Repeats Threefold")
+    public void threefold() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int round = 0; round < 2; round++) {
+            for (String move : shuffle) {
+                assertFalse(game.isThreefoldRepetition());
+                game.makeMove(move(move));
+            }
+        }
+        //The start position is back for the third time
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(ChessGame.GameStatus.REPETITION, game.status(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Pawn Moves Reset The History")
+    public void irreversible() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : new String[]{"g1f3", "g8f6", "f3g1", "f6g8", "e2e4", "e7e5"}) {
+            game.makeMove(move(move));
+        }
+        assertEquals(0, game.getHalfmoveClock());
+        for (String move : new String[]{"g1f3", "g8f6", "f3g1", "f6g8"}) {
+            game.makeMove(move(move));
+        }
+        assertEquals(4, game.getHalfmoveClock());
+        assertFalse(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    public void fiftyMoves() {
+        ChessGame game = Fen.parseGame("7k/8/8/8/8/8/R7/K7 w");
+        //The rook snakes through ranks 2 to 7 and then the king walks, so no position repeats
+        int rook = Bitboards.square(2, 1);
+        for (int ply = 0; ply < 100; ply++) {
+            assertEquals(ply, game.getHalfmoveClock());
+            assertNotEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.status(game.getTeamTurn()));
+            if (ply % 2 == 1) {
+                game.doMove(ply % 4 == 1 ? move("h8g8") : move("g8h8"));
+            } else if (ply < 94) {
+                int row = Bitboards.row(rook);
+                int col = Bitboards.column(rook);
+                boolean rightward = row % 2 == 0;
+                int next = rightward ? (col < 8 ? rook + 1 : rook + 8) : (col > 1 ? rook - 1 : rook + 8);
+                game.doMove(MoveList.encode(rook, next, null));
+                rook = next;
+            } else {
+                int king = Bitboards.square(1, 1 + (ply - 94) / 2);
+                game.doMove(MoveList.encode(king, king + 1, null));
+            }
+        }
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.status(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Undo Restores The Clock")
+    public void undo() {
+        ChessGame game = new ChessGame();
+        game.doMove(move("g1f3"));
+        game.doMove(move("e7e5"));
+        game.doMove(move("f3g1"));
+        assertEquals(1, game.getHalfmoveClock());
+        game.undoMove();
+        game.undoMove();
+        assertEquals(1, game.getHalfmoveClock());
+        game.undoMove();
+        assertEquals(0, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Moves From Empty Squares Don't Throw")
+    public void emptySquare() {
+        ChessGame game = new ChessGame();
+        assertFalse(game.wouldLeaveInCheck(move("e4e5"), ChessGame.TeamColor.WHITE));
+        game.doMove(move("e4e5"));
+        assertEquals(1, game.getHalfmoveClock());
+        game.undoMove();
+        assertEquals(new ChessGame(), game);
+
+        //Promotions too, onto an empty square and onto a piece
+        ChessMove promotion = ChessMove.of(position("e5"), position("e8"), ChessPiece.PieceType.QUEEN);
+        assertFalse(game.wouldLeaveInCheck(promotion, ChessGame.TeamColor.WHITE));
+        game.doMove(promotion);
+        assertNull(game.getBoard().getPiece(position("e8")));
+        game.undoMove();
+        assertEquals(new ChessGame(), game);
+        game.doMove(ChessMove.of(position("e5"), position("e6"), ChessPiece.PieceType.KNIGHT));
+        game.undoMove();
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    @DisplayName("History Survives Serialization")
+    public void serialized() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int i = 0; i < 8; i++) {
+            game = gson.fromJson(gson.toJson(game), ChessGame.class);
+            game.makeMove(move(shuffle[i % shuffle.length]));
+        }
+        assertEquals(ChessGame.GameStatus.REPETITION, game.status(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Saved History Holds Only Repeatable Positions")
+    public void savedHistory() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        assertEquals(0, savedKeys(gson, game));
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int i = 0; i < 6; i++) {
+            game.makeMove(move(shuffle[i % shuffle.length]));
+            assertEquals(i + 1, savedKeys(gson, game));
+        }
+        game.makeMove(move("e2e4"));
+        assertEquals(0, savedKeys(gson, game));
+        game.makeMove(move("b8c6"));
+        assertEquals(1, savedKeys(gson, game));
+    }
+
+    private static int savedKeys(Gson gson, ChessGame game) {
+        return gson.toJsonTree(game).getAsJsonObject().getAsJsonArray("positionKeys").size();
+    }
+
+    private static ChessMove move(String text) {
+        return ChessMove.of(position(text.substring(0, 2)), position(text.substring(2, 4)), null);
+    }
+
+    private static ChessPosition position(String text) {
+        return ChessPosition.of(text.charAt(1) - '0', text.charAt(0) - 'a' + 1);
+    }
+}
@@ -0,0 +1,63 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticExchangeTest {
+
+    @Test
+    @DisplayName("Undefended Piece Wins Its Value")
+    public void undefended() {
+        ChessGame game = Fen.parseGame("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w");
+        assertEquals(100, game.staticExchange(move("e1e5")));
+    }
+
+    @Test
+    @DisplayName("Defended Pawn Costs A Knight")
+    public void defended() {
+        ChessGame game = Fen.parseGame("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w");
+        assertEquals(100 - 320, game.staticExchange(move("d3e5")));
+    }
+
+    @Test
+    @DisplayName("X-Ray Attackers Join The Exchange")
+    public void xray() {
+        //A rook takes a rook defended by a rook, without and then with a second rook behind it
+        ChessGame single = Fen.parseGame("3r2k1/3r4/8/8/8/8/3R4/6K1 w");
+        assertEquals(0, single.staticExchange(move("d2d7")));
+        ChessGame doubled = Fen.parseGame("3r2k1/3r4/8/8/8/8/3R4/3R2K1 w");
+        assertEquals(500, doubled.staticExchange(move("d2d7")));
+    }
+
+    @Test
+    @DisplayName("King Only Takes Last")
+    public void king() {
+        //The black king can't take back while a white piece still covers the square
+        ChessGame covered = Fen.parseGame("8/3k4/3p4/8/8/8/3R4/3RK3 w");
+        assertEquals(100, covered.staticExchange(move("d2d6")));
+        ChessGame alone = Fen.parseGame("8/3k4/3p4/8/8/8/3R4/4K3 w");
+        assertEquals(100 - 500, alone.staticExchange(move("d2d6")));
+        ChessGame defended = Fen.parseGame("6k1/8/8/8/8/2b5/3p4/4K3 w");
+        assertTrue(defended.staticExchange(move("e1d2")) < 0);
+    }
+
+    @Test
+    @DisplayName("Board Is Unchanged")
+    public void unchanged() {
+        ChessGame game = Fen.parseGame("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w");
+        ChessGame copy = new ChessGame(game);
+        game.staticExchange(move("d3e5"));
+        assertEquals(copy, game);
+        assertEquals(copy.zobristKey(), game.zobristKey());
+    }
+
+    private static ChessMove move(String text) {
+        return ChessMove.of(position(text.substring(0, 2)), position(text.substring(2, 4)), null);
+    }
+
+    private static ChessPosition position(String text) {
+        return ChessPosition.of(text.charAt(1) - '0', text.charAt(0) - 'a' + 1);
+    }
+}
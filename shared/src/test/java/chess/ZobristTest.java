@@ -0,0 +1,62 @@
+package chess;
+
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZobristTest {
+
+    @Test
+    @DisplayName("Incremental Keys Match Recomputed Keys")
+    public void incremental() {
+        Random random = new Random(6);
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 80; ply++) {
+            moves.clear();
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            long before = game.zobristKey();
+            game.doMove(moves.get(random.nextInt(moves.size())));
+            assertEquals(new ChessBoard(game.getBoard()).zobristKey(), game.getBoard().zobristKey());
+            if (ply % 5 == 4) {
+                game.undoMove();
+                assertEquals(before, game.zobristKey());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Transpositions Share A Key")
+    public void transpositions() {
+        ChessGame first = new ChessGame();
+        first.doMove(move(1, 7, 3, 6));
+        first.doMove(move(8, 7, 6, 6));
+        first.doMove(move(1, 2, 3, 3));
+        ChessGame second = new ChessGame();
+        second.doMove(move(1, 2, 3, 3));
+        second.doMove(move(8, 7, 6, 6));
+        second.doMove(move(1, 7, 3, 6));
+        assertEquals(first.zobristKey(), second.zobristKey());
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    @DisplayName("Team To Move Changes The Key")
+    public void teamToMove() {
+        ChessGame game = new ChessGame();
+        long white = game.zobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(white, game.zobristKey());
+        assertEquals(game.getBoard().zobristKey(), new ChessGame().getBoard().zobristKey());
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+}
@@ -0,0 +1,115 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("book", ".bin");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Book Moves Are Weighted By Games")
+    public void weightedMoves() throws IOException {
+        new OpeningBookBuilder()
+                .addGames(Stream.of(game("e2e4 e7e5 g1f3"), game("e2e4 c7c5"), game("d2d4 d7d5"), game("e2e4 e7e5")))
+                .write(file, 1);
+        OpeningBook book = OpeningBook.open(file);
+
+        List<OpeningBook.BookMove> moves = book.moves(new ChessGame());
+        assertEquals(2, moves.size());
+        assertEquals(new OpeningBook.BookMove(move("e2e4"), 3), moves.get(0));
+        assertEquals(new OpeningBook.BookMove(move("d2d4"), 1), moves.get(1));
+        assertEquals(6, book.size());
+    }
+
+    @Test
+    @DisplayName("Finds Position After Moves")
+    public void positionAfterMoves() throws IOException, InvalidMoveException {
+        new OpeningBookBuilder().addGame(game("e2e4 e7e5 g1f3 b8c6")).write(file, 1);
+        OpeningBook book = OpeningBook.open(file);
+
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        game.makeMove(move("e7e5"));
+        assertEquals(move("g1f3"), book.pick(game, new Random(1)));
+        game.makeMove(move("g1f3"));
+        assertEquals(List.of(new OpeningBook.BookMove(move("b8c6"), 1)), book.moves(game));
+        //Looking up the board and team finds the same entries as the game's key
+        assertEquals(book.moves(game), book.moves(game.getBoard(), ChessGame.TeamColor.BLACK));
+        assertTrue(book.moves(game.getBoard(), ChessGame.TeamColor.WHITE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Position Not In Book")
+    public void notInBook() throws IOException, InvalidMoveException {
+        new OpeningBookBuilder().addGame(game("e2e4 e7e5")).write(file, 1);
+        OpeningBook book = OpeningBook.open(file);
+
+        ChessGame game = new ChessGame();
+        game.makeMove(move("a2a3"));
+        assertTrue(book.moves(game).isEmpty());
+        assertNull(book.pick(game, new Random(1)));
+    }
+
+    @Test
+    @DisplayName("Plies, Minimum Count And Invalid Moves")
+    public void builderLimits() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(1)
+                .addGame(game("e2e4 e7e5"))
+                .addGame(game("e2e4"))
+                .addGame(game("d2d4"))
+                .addGame(game("e2e5"));
+        assertEquals(4, builder.games());
+        assertEquals(1, builder.rejectedGames());
+        assertEquals(1, builder.write(file, 2));
+
+        OpeningBook book = OpeningBook.open(file);
+        assertEquals(List.of(new OpeningBook.BookMove(move("e2e4"), 2)), book.moves(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Rejects Other Files")
+    public void rejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[24]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+        Files.write(file, new byte[5]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+
+    @Test
+    @DisplayName("Parses Coordinate Notation")
+    public void parsesMoves() {
+        assertEquals("[7, 1] -> [8, 1]", OpeningBookBuilder.parseMove("a7a8q").toString());
+        assertThrows(IllegalArgumentException.class, () -> OpeningBookBuilder.parseMove("e2e9"));
+        assertThrows(IllegalArgumentException.class, () -> OpeningBookBuilder.parseMove("e2e4k"));
+    }
+
+    private static ChessMove move(String text) {
+        return OpeningBookBuilder.parseMove(text);
+    }
+
+    private static List<ChessMove> game(String moves) {
+        return Stream.of(moves.split(" ")).map(OpeningBookBuilder::parseMove).toList();
+    }
+}
@@ -0,0 +1,170 @@
+package chess.codec;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodecTest {
+
+    private static final String[] POSITIONS = {
+            Fen.START_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 37 1",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 99 1",
+            "8/8/8/8/8/8/8/8 b - - 0 1",
+    };
+
+    @Test
+    @DisplayName("FEN Round Trips")
+    public void fenRoundTrip() {
+        for (String fen : POSITIONS) {
+            assertEquals(fen, Fen.toFen(Fen.parseGame(fen)));
+        }
+        assertEquals(new ChessGame(), Fen.parseGame(Fen.START_POSITION));
+        //Missing and extra fields
+        assertEquals(ChessGame.TeamColor.WHITE, Fen.parseGame("8/8/8/8/8/8/8/8").getTeamTurn());
+        ChessGame extra = Fen.parseGame("  8/8/8/8/8/8/8/8 b KQkq e3 4 20");
+        assertEquals(ChessGame.TeamColor.BLACK, extra.getTeamTurn());
+        assertEquals(4, extra.getHalfmoveClock());
+        assertEquals(0, Fen.parseGame("8/8/8/8/8/8/8/8 b").getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Bad FEN Leaves Game Alone")
+    public void badFen() {
+        String[] bad = {"8/8/8/8/8/8/8", "9/8/8/8/8/8/8/8", "8/8/8/8/8/8/8/7x", "8/8/8/8/8/8/8/8/8",
+                "ppppppppp/8/8/8/8/8/8/8", "8/8/8/8/8/8/8/8 x", "8/8/8/8/8/8/8/8 white",
+                "8/8/8/8/8/8/8/8 w - - x 1", "8/8/8/8/8/8/8/8 w - - -3 1", "8/8/8/8/8/8/8/8 w - - 99999999999 1"};
+        for (String fen : bad) {
+            ChessGame game = new ChessGame();
+            assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen, game), fen);
+            assertEquals(new ChessGame(), game, fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Parses Into An Existing Game")
+    public void parseInto() {
+        ChessGame game = new ChessGame();
+        for (String fen : POSITIONS) {
+            Fen.parse(fen, game);
+            assertEquals(Fen.parseGame(fen), game);
+            assertEquals(Fen.parseGame(fen).zobristKey(), game.zobristKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Binary Round Trips")
+    public void binaryRoundTrip() {
+        byte[] bytes = new byte[PositionCodec.BYTES + 3];
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parseGame(fen);
+            PositionCodec.encode(game, bytes, 3);
+            ChessGame decoded = new ChessGame();
+            PositionCodec.decode(bytes, 3, decoded);
+            assertEquals(game, decoded, fen);
+            assertEquals(game.getTeamTurn(), decoded.getTeamTurn(), fen);
+            assertEquals(game.getHalfmoveClock(), decoded.getHalfmoveClock(), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Halfmove Clock Survives Round Trips")
+    public void halfmoveClock() {
+        ChessGame game = Fen.parseGame("4k3/8/8/8/8/8/8/4K2R w - - 99 1");
+        assertEquals(99, game.getHalfmoveClock());
+        game.doMove(ChessMove.of(ChessPosition.of(1, 8), ChessPosition.of(2, 8), null));
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.status(ChessGame.TeamColor.BLACK));
+
+        ChessGame parsed = Fen.parseGame(Fen.toFen(game));
+        assertEquals(100, parsed.getHalfmoveClock());
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, parsed.status(ChessGame.TeamColor.BLACK));
+
+        byte[] bytes = new byte[PositionCodec.BYTES];
+        PositionCodec.encode(game, bytes, 0);
+        ChessGame decoded = new ChessGame();
+        PositionCodec.decode(bytes, 0, decoded);
+        assertEquals(100, decoded.getHalfmoveClock());
+
+        //The binary clock stops counting at 255
+        game.setHalfmoveClock(1000);
+        PositionCodec.encode(game, bytes, 0);
+        PositionCodec.decode(bytes, 0, decoded);
+        assertEquals(255, decoded.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Buffers Match Arrays")
+    public void buffers() {
+        ChessGame game = Fen.parseGame(POSITIONS[1]);
+        game.setGameOver(true);
+        byte[] bytes = new byte[PositionCodec.BYTES];
+        PositionCodec.encode(game, bytes, 0);
+
+        ByteBuffer[] buffers = {ByteBuffer.allocate(40), ByteBuffer.allocateDirect(40),
+                ByteBuffer.allocateDirect(40).order(ByteOrder.LITTLE_ENDIAN)};
+        for (ByteBuffer buffer : buffers) {
+            buffer.position(4);
+            PositionCodec.encode(game, buffer);
+            assertEquals(4 + PositionCodec.BYTES, buffer.position());
+            byte[] written = new byte[PositionCodec.BYTES];
+            buffer.get(4, written);
+            assertArrayEquals(bytes, written);
+
+            buffer.position(4);
+            ChessGame decoded = new ChessGame();
+            PositionCodec.decode(buffer, decoded);
+            assertEquals(game, decoded);
+            assertTrue(decoded.isGameOver());
+            assertEquals(4 + PositionCodec.BYTES, buffer.position());
+        }
+    }
+
+    @Test
+    @DisplayName("Encoding Is Canonical")
+    public void canonical() {
+        byte[] first = new byte[PositionCodec.BYTES];
+        byte[] second = new byte[PositionCodec.BYTES];
+        Arrays.fill(second, (byte) -1);
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        PositionCodec.encode(game, first, 0);
+        PositionCodec.encode(board, second, 0);
+        assertArrayEquals(first, second);
+
+        //Occupancy, then white's rook and knight codes
+        assertEquals(0, first[3]);
+        assertEquals((byte) 0xFF, first[7]);
+        assertEquals((byte) 0x43, first[8]);
+    }
+
+    @Test
+    @DisplayName("Rejects Bad Encodings")
+    public void badEncoding() {
+        byte[] bytes = new byte[PositionCodec.BYTES];
+        bytes[7] = 1;
+        bytes[8] = (byte) 0xC0;
+        ChessGame game = new ChessGame();
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(bytes, 0, game));
+        assertEquals(new ChessGame(), game);
+
+        ChessBoard crowded = new ChessBoard();
+        for (int row = 1; row <= 6; row++) {
+            for (int col = 1; col <= 8; col++) {
+                crowded.addPiece(ChessPosition.of(row, col),
+                        ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.encode(crowded, bytes, 0));
+    }
+}
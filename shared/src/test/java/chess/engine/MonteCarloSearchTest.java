@@ -0,0 +1,105 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloSearchTest {
+
+    private MonteCarloSearch search;
+
+    @BeforeEach
+    public void setUp() {
+        search = new MonteCarloSearch(200_000, 4, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        search.close();
+    }
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w");
+        SearchResult result = search.search(game, SearchLimits.nodes(3000));
+
+        assertEquals(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        assertTrue(result.score() > 500);
+    }
+
+    @Test
+    @DisplayName("Takes A Free Queen")
+    public void freeQueen() {
+        try (MonteCarloSearch single = new MonteCarloSearch(100_000, 1, 1)) {
+            ChessGame game = Fen.parseGame("4k3/8/8/3q4/8/8/3R4/4K3 w");
+            SearchResult result = single.search(game, SearchLimits.nodes(3000));
+
+            assertEquals(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(5, 4), null), result.bestMove());
+        }
+    }
+
+    @Test
+    @DisplayName("Plays Exactly The Playout Budget")
+    public void playoutBudget() {
+        SearchResult result = search.search(new ChessGame(), SearchLimits.nodes(2000));
+
+        assertNotNull(result.bestMove());
+        assertEquals(2000, result.nodes());
+        //Repeated searches reuse the threads and trees
+        assertEquals(2000, search.search(new ChessGame(), SearchLimits.nodes(2000)).nodes());
+    }
+
+    @Test
+    @DisplayName("Stops At Time Budget")
+    public void timeBudget() {
+        SearchResult result = search.search(new ChessGame(), SearchLimits.millis(100));
+
+        assertNotNull(result.bestMove());
+        assertTrue(result.nanos() < 1_000_000_000L, "took " + result.nanos() / 1_000_000 + " ms");
+    }
+
+    @Test
+    @DisplayName("Keeps Searching Once The Trees Are Full")
+    public void fullTree() {
+        try (MonteCarloSearch small = new MonteCarloSearch(100, 2, 1)) {
+            SearchResult result = small.search(new ChessGame(), SearchLimits.nodes(1000));
+
+            assertNotNull(result.bestMove());
+            assertEquals(1000, result.nodes());
+        }
+    }
+
+    @Test
+    @DisplayName("Full Tree Stays Within Capacity")
+    public void longPastCapacity() {
+        try (MonteCarloSearch small = new MonteCarloSearch(100, 2, 1)) {
+            for (int round = 0; round < 3; round++) {
+                SearchResult result = small.search(new ChessGame(), SearchLimits.nodes(10_000));
+
+                assertNotNull(result.bestMove());
+                assertEquals(10_000, result.nodes());
+                assertTrue(small.largestTreeSize() <= 100, "tree size " + small.largestTreeSize());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Leaves Game Unchanged")
+    public void gameUnchanged() {
+        ChessGame game = new ChessGame();
+        search.search(game, SearchLimits.nodes(1000));
+
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    @DisplayName("Rejects Depth-Only Limits")
+    public void depthOnly() {
+        assertThrows(IllegalArgumentException.class, () -> search.search(new ChessGame(), SearchLimits.depth(5)));
+    }
+}
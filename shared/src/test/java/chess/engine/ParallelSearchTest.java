@@ -0,0 +1,91 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.codec.Fen;
+import chess.eval.Evaluator;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTest {
+
+    private ParallelSearch search;
+
+    @BeforeEach
+    public void setUp() {
+        search = new ParallelSearch(new HeapTranspositionTable(4), 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        search.close();
+    }
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w");
+        SearchResult result = search.search(game, SearchLimits.depth(5));
+
+        assertEquals(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    @DisplayName("Agrees With Single Thread")
+    public void agreesWithSingleThread() {
+        ChessGame game = Fen.parseGame("4k3/8/8/3q4/8/8/3R4/4K3 w");
+        SearchResult parallel = search.search(game, SearchLimits.depth(5));
+        SearchResult single = new Search(new HeapTranspositionTable(1)).search(game, SearchLimits.depth(5));
+
+        assertEquals(single.bestMove(), parallel.bestMove());
+    }
+
+    @Test
+    @DisplayName("Stops Helpers At Time Budget")
+    public void timeBudget() {
+        SearchResult result = search.search(new ChessGame(), SearchLimits.millis(100));
+
+        assertNotNull(result.bestMove());
+        assertTrue(result.nanos() < 1_000_000_000L, "took " + result.nanos() / 1_000_000 + " ms");
+    }
+
+    @Test
+    @DisplayName("Stops Helpers At Node Budget")
+    public void nodeBudget() {
+        SearchResult result = search.search(new ChessGame(), SearchLimits.nodes(20000));
+
+        assertNotNull(result.bestMove());
+        //Repeated searches reuse the threads
+        assertNotNull(search.search(new ChessGame(), SearchLimits.nodes(20000)).bestMove());
+    }
+
+    @Test
+    @DisplayName("Leaves Game Unchanged")
+    public void gameUnchanged() {
+        ChessGame game = new ChessGame();
+        search.search(game, SearchLimits.depth(5));
+
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    @DisplayName("Gives Every Thread Its Own Evaluator")
+    public void evaluatorPerThread() {
+        AtomicInteger created = new AtomicInteger();
+        try (ParallelSearch withEvaluators = new ParallelSearch(new HeapTranspositionTable(4), 3, () -> {
+            created.incrementAndGet();
+            return new Evaluator();
+        })) {
+            ChessGame game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w");
+            SearchResult result = withEvaluators.search(game, SearchLimits.depth(5));
+
+            assertEquals(3, created.get());
+            assertEquals(Search.MATE - 1, result.score());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+
+    private Search search;
+
+    @BeforeEach
+    public void setUp() {
+        search = new Search(new HeapTranspositionTable(1));
+    }
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w");
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+
+        assertEquals(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+        assertTrue(Search.isMateScore(result.score()));
+    }
+
+    @Test
+    @DisplayName("Finds Mate In Two")
+    public void mateInTwo() {
+        //Kb6 leaves black's king nowhere to go, then the rook mates on the back rank
+        ChessGame game = Fen.parseGame("k7/8/2K5/8/8/8/8/7R w");
+        SearchResult result = search.search(game, SearchLimits.depth(6));
+
+        assertEquals(Search.MATE - 3, result.score());
+    }
+
+    @Test
+    @DisplayName("Takes Hanging Queen")
+    public void takesHangingQueen() {
+        ChessGame game = Fen.parseGame("4k3/8/8/3q4/8/8/3R4/4K3 w");
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+
+        assertEquals(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(5, 4), null), result.bestMove());
+        assertTrue(result.score() > 0);
+    }
+
+    @Test
+    @DisplayName("Respects Node Budget")
+    public void nodeBudget() {
+        SearchResult result = search.search(new ChessGame(), SearchLimits.nodes(5000));
+
+        assertNotNull(result.bestMove());
+        assertTrue(result.nodes() <= 5000, "searched " + result.nodes() + " nodes");
+    }
+
+    @Test
+    @DisplayName("Respects Time Budget")
+    public void timeBudget() {
+        SearchResult result = search.search(new ChessGame(), SearchLimits.millis(100));
+
+        assertNotNull(result.bestMove());
+        assertTrue(result.nanos() < 1_000_000_000L, "took " + result.nanos() / 1_000_000 + " ms");
+    }
+
+    @Test
+    @DisplayName("Leaves Game Unchanged")
+    public void gameUnchanged() {
+        ChessGame game = Fen.parseGame(Fen.START_POSITION);
+        search.search(game, SearchLimits.depth(4));
+
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    @DisplayName("No Move When Checkmated")
+    public void checkmated() {
+        ChessGame game = Fen.parseGame("R5k1/5ppp/8/8/8/8/8/6K1 b");
+        SearchResult result = search.search(game, SearchLimits.depth(3));
+
+        assertNull(result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Repeating A Game Position Scores As A Draw")
+    public void gameRepetition() {
+        ChessGame game = Fen.parseGame("3qk3/8/8/8/8/8/8/4K1N1 w");
+        assertTrue(search.search(game, SearchLimits.depth(4)).score() < -500);
+
+        //The knight can go back to f3, repeating the position after the first move
+        game.doMove(move(1, 7, 3, 6));
+        game.doMove(move(8, 4, 7, 4));
+        game.doMove(move(3, 6, 1, 7));
+        game.doMove(move(7, 4, 8, 4));
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+
+        assertEquals(0, result.score());
+        assertEquals(move(1, 7, 3, 6), result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule Scores As A Draw")
+    public void fiftyMoves() {
+        ChessGame game = Fen.parseGame("4k3/8/8/8/8/8/8/R3K3 w - - 99 1");
+        assertEquals(0, search.search(game, SearchLimits.depth(3)).score());
+
+        //Mate on the hundredth move still counts
+        game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w - - 99 1");
+        assertEquals(Search.MATE - 1, search.search(game, SearchLimits.depth(3)).score());
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+}
@@ -0,0 +1,92 @@
+package chess.engine;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    //Keys that all fall in the same bucket of a 1 MB table
+    private static final long BUCKET_STRIDE = 1L << 20;
+
+    @Test
+    @DisplayName("Stores And Probes On Heap")
+    public void heapStoreAndProbe() {
+        storeAndProbe(new HeapTranspositionTable(1));
+    }
+
+    @Test
+    @DisplayName("Stores And Probes Off Heap")
+    public void directStoreAndProbe() {
+        storeAndProbe(new DirectTranspositionTable(1));
+    }
+
+    @Test
+    @DisplayName("Bucket Holds Four Positions")
+    public void bucketHoldsFour() {
+        TranspositionTable table = new DirectTranspositionTable(1);
+        for (int i = 1; i <= TranspositionTable.BUCKET_SLOTS; i++) {
+            table.store(i * BUCKET_STRIDE + 5, i, 0, i, TranspositionTable.EXACT);
+        }
+        for (int i = 1; i <= TranspositionTable.BUCKET_SLOTS; i++) {
+            assertEquals(i, TranspositionTable.move(table.probe(i * BUCKET_STRIDE + 5)));
+        }
+    }
+
+    @Test
+    @DisplayName("Replaces Shallowest Entry")
+    public void replacesShallowest() {
+        TranspositionTable table = new HeapTranspositionTable(1);
+        for (int i = 1; i <= TranspositionTable.BUCKET_SLOTS; i++) {
+            table.store(i * BUCKET_STRIDE, i, 0, 10 + i, TranspositionTable.EXACT);
+        }
+        table.store(9 * BUCKET_STRIDE, 9, 0, 1, TranspositionTable.EXACT);
+
+        assertEquals(0L, table.probe(BUCKET_STRIDE));
+        assertNotEquals(0L, table.probe(9 * BUCKET_STRIDE));
+    }
+
+    @Test
+    @DisplayName("Replaces Older Search Before Deeper Entry")
+    public void replacesOlderSearch() {
+        TranspositionTable table = new HeapTranspositionTable(1);
+        table.store(BUCKET_STRIDE, 1, 0, 8, TranspositionTable.EXACT);
+        table.newSearch();
+        for (int i = 2; i <= TranspositionTable.BUCKET_SLOTS; i++) {
+            table.store(i * BUCKET_STRIDE, i, 0, 2, TranspositionTable.EXACT);
+        }
+        table.store(9 * BUCKET_STRIDE, 9, 0, 2, TranspositionTable.EXACT);
+
+        assertEquals(0L, table.probe(BUCKET_STRIDE));
+        assertEquals(4, TranspositionTable.move(table.probe(4 * BUCKET_STRIDE)));
+    }
+
+    @Test
+    @DisplayName("Keeps Deeper Bound For Same Position")
+    public void keepsDeeperBound() {
+        TranspositionTable table = new HeapTranspositionTable(1);
+        table.store(42, 1, 50, 8, TranspositionTable.LOWER);
+        table.store(42, 2, 60, 3, TranspositionTable.UPPER);
+
+        assertEquals(8, TranspositionTable.depth(table.probe(42)));
+        table.store(42, 3, 70, 3, TranspositionTable.EXACT);
+        assertEquals(3, TranspositionTable.move(table.probe(42)));
+    }
+
+    private static void storeAndProbe(TranspositionTable table) {
+        assertEquals(1024 * 1024, table.sizeBytes());
+        long key = 0x9E3779B97F4A7C15L;
+        assertEquals(0L, table.probe(key));
+
+        table.store(key, 0x1234, -Search.MATE + 3, 17, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+        assertEquals(0x1234, TranspositionTable.move(entry));
+        assertEquals(-Search.MATE + 3, TranspositionTable.score(entry));
+        assertEquals(17, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0L, table.probe(key ^ 1L << 40));
+
+        table.clear();
+        assertEquals(0L, table.probe(key));
+    }
+}
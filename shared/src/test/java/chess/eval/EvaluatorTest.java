@@ -0,0 +1,107 @@
+package chess.eval;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTest {
+
+    private Evaluator evaluator;
+
+    @BeforeEach
+    public void setUp() {
+        evaluator = new Evaluator();
+    }
+
+    @Test
+    @DisplayName("Start Position Is Even")
+    public void startPosition() {
+        assertEquals(0, evaluator.evaluate(new ChessGame().getBoard()));
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Score Opposite")
+    public void mirrored() {
+        String[][] pairs = {
+                {"r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w",
+                        "rnbqk2r/pppp1ppp/5n2/2b1p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R b"},
+                {"8/5k2/8/3P4/8/8/2K5/8 w", "8/2k5/8/8/3p4/8/5K2/8 b"},
+        };
+        for (String[] pair : pairs) {
+            ChessGame game = Fen.parseGame(pair[0]);
+            ChessGame mirror = Fen.parseGame(pair[1]);
+            assertEquals(evaluator.evaluate(game.getBoard()), -evaluator.evaluate(mirror.getBoard()));
+            assertEquals(evaluator.evaluate(game), evaluator.evaluate(mirror));
+        }
+    }
+
+    @Test
+    @DisplayName("Extra Material Wins")
+    public void material() {
+        assertTrue(evaluator.evaluate(Fen.parseGame("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w")) > 800);
+        assertTrue(evaluator.evaluate(Fen.parseGame("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b")) < -800);
+    }
+
+    @Test
+    @DisplayName("Pawn Structure")
+    public void pawnStructure() {
+        //A passed pawn against a blocked one, then doubled isolated pawns against connected ones
+        int passed = evaluator.evaluate(Fen.parseGame("4k3/8/8/3P4/8/8/8/4K3 w").getBoard());
+        int blocked = evaluator.evaluate(Fen.parseGame("4k3/3p4/8/3P4/8/8/8/4K3 w").getBoard());
+        assertTrue(passed > blocked + 100);
+
+        int doubled = evaluator.evaluate(Fen.parseGame("4k3/pp6/8/8/8/P7/P7/4K3 w").getBoard());
+        int connected = evaluator.evaluate(Fen.parseGame("4k3/pp6/8/8/8/8/PP6/4K3 w").getBoard());
+        assertTrue(doubled < connected);
+    }
+
+    @Test
+    @DisplayName("Incremental Scores Match A Fresh Evaluator")
+    public void incremental() {
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        walk(game, 3);
+    }
+
+    @Test
+    @DisplayName("Square Score Sums The Table Asked For")
+    public void squareScore() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        int[] counts = new int[12 * 64];
+        Arrays.fill(counts, 1);
+        assertEquals(0, board.squareScore(PieceSquareTables.PACKED));
+        assertEquals(32, board.squareScore(counts));
+        game.doMove(MoveList.encode(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null)));
+        assertEquals(32, board.squareScore(counts));
+        assertNotEquals(0, board.squareScore(PieceSquareTables.PACKED));
+        game.undoMove();
+        assertEquals(0, board.squareScore(PieceSquareTables.PACKED));
+        assertThrows(IllegalArgumentException.class, () -> board.squareScore(new int[64]));
+    }
+
+    private void walk(ChessGame game, int depth) {
+        ChessBoard board = game.getBoard();
+        ChessBoard fresh = new ChessBoard(board);
+        assertEquals(fresh.pawnKey(), board.pawnKey());
+        assertEquals(fresh.squareScore(PieceSquareTables.PACKED), board.squareScore(PieceSquareTables.PACKED));
+        assertEquals(new Evaluator().evaluate(fresh), evaluator.evaluate(board));
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i += 3) {
+            game.doMove(moves.get(i));
+            walk(game, depth - 1);
+            game.undoMove();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package chess.eval;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NnueEvaluatorTest {
+
+    private static final int HIDDEN = 32;
+
+    private Network network;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        network = randomNetwork(new Random(20));
+        file = Files.createTempFile("network", ".nnue");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Incremental Updates Match A Fresh Evaluator")
+    public void incremental() {
+        NnueEvaluator incremental = new NnueEvaluator(network);
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        Random random = new Random(7);
+        for (int ply = 0; ply < 60; ply++) {
+            moves.clear();
+            game.legalMoves(moves);
+            if (moves.size() == 0) {
+                break;
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+            assertEquals(new NnueEvaluator(network).evaluate(game), incremental.evaluate(game));
+            if (ply % 5 == 4) {
+                game.undoMove();
+                assertEquals(new NnueEvaluator(network).evaluate(game), incremental.evaluate(game));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Score The Same For The Side To Move")
+    public void mirrored() {
+        NnueEvaluator evaluator = new NnueEvaluator(network);
+        ChessGame game = Fen.parseGame("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w");
+        ChessGame mirror = Fen.parseGame("rnbqk2r/pppp1ppp/5n2/2b1p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R b");
+        assertEquals(evaluator.evaluate(game), evaluator.evaluate(mirror));
+    }
+
+    @Test
+    @DisplayName("Written Network Loads Back")
+    public void writeAndLoad() throws IOException {
+        network.write(file);
+        Network loaded = Network.load(file);
+        assertEquals(HIDDEN, loaded.hidden());
+
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        assertEquals(new NnueEvaluator(network).evaluate(game), new NnueEvaluator(loaded).evaluate(game));
+    }
+
+    @Test
+    @DisplayName("Rejects Files That Aren't Networks")
+    public void rejectsBadFiles() throws IOException {
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> Network.load(file));
+    }
+
+    private static Network randomNetwork(Random random) {
+        short[] featureWeights = randomShorts(random, Network.INPUTS * HIDDEN, 32);
+        short[] featureBiases = randomShorts(random, HIDDEN, 64);
+        short[] outputWeights = randomShorts(random, 2 * HIDDEN, 64);
+        return new Network(HIDDEN, featureWeights, featureBiases, outputWeights, random.nextInt(1000));
+    }
+
+    private static short[] randomShorts(Random random, int length, int bound) {
+        short[] values = new short[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (short) (random.nextInt(2 * bound + 1) - bound);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,85 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTest {
+
+    private static final int DEPTH = 3;
+
+    private Perft perft;
+
+    @BeforeEach
+    public void setUp() {
+        perft = new Perft(2, 0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        perft.close();
+    }
+
+    @Test
+    @DisplayName("Suite Positions Match Known Counts")
+    public void suitePositions() {
+        for (PerftSuite.Position position : PerftSuite.POSITIONS) {
+            ChessGame game = Fen.parseGame(position.fen());
+            for (int depth = 1; depth <= DEPTH; depth++) {
+                assertEquals(position.nodes()[depth - 1], perft.run(game, depth).nodes(),
+                        position.name() + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Hashed Counts Match Unhashed Counts")
+    public void hashedCounts() {
+        try (Perft hashed = new Perft(2, 1)) {
+            for (PerftSuite.Position position : PerftSuite.POSITIONS) {
+                ChessGame game = Fen.parseGame(position.fen());
+                assertEquals(position.nodes()[DEPTH - 1], hashed.run(game, DEPTH).nodes(), position.name());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel Counts Match Single Threaded Counts")
+    public void singleThreaded() {
+        ChessGame game = Fen.parseGame(PerftSuite.POSITIONS.get(1).fen());
+        assertEquals(Perft.count(game, DEPTH), perft.run(game, DEPTH).nodes());
+    }
+
+    @Test
+    @DisplayName("Divide Sums To Total And Leaves Game Unchanged")
+    public void divide() {
+        ChessGame game = new ChessGame();
+        ChessGame original = new ChessGame();
+        Map<ChessMove, Long> counts = perft.divide(game, DEPTH);
+
+        assertEquals(20, counts.size());
+        assertEquals(8902, counts.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(original, game);
+    }
+
+    @Test
+    @DisplayName("Black To Move")
+    public void blackToMove() {
+        ChessGame game = Fen.parseGame("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(20, perft.run(game, 1).nodes());
+    }
+
+    @Test
+    @DisplayName("Invalid FEN")
+    public void invalidFen() {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parseGame("8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parseGame("8/8/8/8/8/8/8/7x w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parseGame("8/8/8/8/8/8/8/8 x"));
+    }
+}
@@ -0,0 +1,128 @@
+package chess.tablebase;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.codec.Fen;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTest {
+
+    private static Path directory;
+    private static TablebaseGenerator generator;
+    private Tablebase tablebase;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        //Generating takes a few seconds, so the tables are shared by every test
+        if (directory == null) {
+            directory = Files.createTempDirectory("tablebase");
+            generator = new TablebaseGenerator(Runtime.getRuntime().availableProcessors());
+            generator.write(Endgame.KQK, directory);
+            generator.write(Endgame.KRK, directory);
+            generator.write(Endgame.KPK, directory);
+            for (Path file : Files.newDirectoryStream(directory)) {
+                file.toFile().deleteOnExit();
+            }
+            directory.toFile().deleteOnExit();
+        }
+        tablebase = Tablebase.open(directory);
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match Known Values")
+    public void longestMates() {
+        //Mate in 10 with the queen and in 16 with the rook
+        assertEquals(19, longestWin(Endgame.KQK));
+        assertEquals(31, longestWin(Endgame.KRK));
+    }
+
+    @Test
+    @DisplayName("Checkmate Is A Loss In Zero")
+    public void checkmate() {
+        assertEquals(new TablebaseResult(TablebaseResult.Wdl.LOSS, 0), probe("k7/1Q6/1K6/8/8/8/8/8 b"));
+        assertEquals(new TablebaseResult(TablebaseResult.Wdl.WIN, 1), probe("k7/7Q/1K6/8/8/8/8/8 w"));
+        assertEquals(TablebaseResult.DRAW, probe("k7/2Q5/1K6/8/8/8/8/8 b"));
+    }
+
+    @Test
+    @DisplayName("Pawn Endings")
+    public void pawnEndings() {
+        //A rook pawn with the defending king in front of it
+        assertEquals(TablebaseResult.DRAW, probe("k7/8/P7/8/8/8/8/7K w"));
+        //The defending king is too far away to catch the pawn
+        assertEquals(TablebaseResult.Wdl.WIN, probe("k7/8/8/8/8/8/7P/7K w").wdl());
+        assertEquals(TablebaseResult.Wdl.LOSS, probe("K7/8/8/8/8/8/7p/7k w").wdl());
+        assertEquals(TablebaseResult.Wdl.WIN, probe("K7/8/8/8/8/8/7p/7k b").wdl());
+    }
+
+    @Test
+    @DisplayName("Colors Swap Symmetrically")
+    public void mirrored() {
+        assertEquals(probe("8/8/3k4/8/8/2K5/8/R7 w"), probe("r7/8/2k5/8/8/3K4/8/8 b"));
+        assertEquals(probe("8/8/3k4/8/8/2K5/8/R7 b"), probe("r7/8/2k5/8/8/3K4/8/8 w"));
+    }
+
+    @Test
+    @DisplayName("Insufficient And Uncovered Material")
+    public void uncovered() {
+        assertEquals(TablebaseResult.DRAW, probe("k7/8/8/8/8/8/8/6NK w"));
+        assertEquals(TablebaseResult.DRAW, probe("k7/8/8/8/8/8/8/7K b"));
+        assertNull(probe("k7/8/8/8/8/8/8/5BNK w"));
+        assertNull(probe("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w"));
+    }
+
+    @Test
+    @DisplayName("Best Moves Mate As Fast As Promised")
+    public void bestMovesMate() {
+        ChessGame game = Fen.parseGame("8/8/3k4/8/8/2K5/8/R7 w");
+        TablebaseResult start = tablebase.probe(game);
+        assertEquals(TablebaseResult.Wdl.WIN, start.wdl());
+
+        int plies = 0;
+        while (game.status(game.getTeamTurn()) != ChessGame.GameStatus.CHECKMATE) {
+            ChessMove move = tablebase.bestMove(game);
+            assertNotNull(move);
+            game.doMove(move);
+            plies++;
+            assertTrue(plies <= start.plies());
+        }
+        assertEquals(start.plies(), plies);
+    }
+
+    @Test
+    @DisplayName("Promotions Are Valued By The Table They Lead To")
+    public void promotion() {
+        ChessGame game = Fen.parseGame("k7/2KP4/8/8/8/8/8/8 w");
+        assertEquals(new TablebaseResult(TablebaseResult.Wdl.WIN, 3), tablebase.probe(game));
+        game.doMove(new ChessMove(ChessPosition.of(7, 4), ChessPosition.of(8, 4), ChessPiece.PieceType.QUEEN));
+        assertEquals(new TablebaseResult(TablebaseResult.Wdl.LOSS, 4), tablebase.probe(game));
+        game.undoMove();
+        game.doMove(new ChessMove(ChessPosition.of(7, 4), ChessPosition.of(8, 4), ChessPiece.PieceType.KNIGHT));
+        assertEquals(TablebaseResult.DRAW, tablebase.probe(game));
+    }
+
+    private int longestWin(Endgame endgame) {
+        byte[] table = generator.generate(endgame);
+        int longest = 0;
+        for (int index = 0; index < table.length; index++) {
+            TablebaseResult result = TablebaseResult.decode(table[index] & 0xFF);
+            if (result.wdl() == TablebaseResult.Wdl.WIN && endgame.toMove(index) == ChessGame.TeamColor.WHITE) {
+                longest = Math.max(longest, result.plies());
+            }
+        }
+        return longest;
+    }
+
+    private TablebaseResult probe(String fen) {
+        ChessGame game = Fen.parseGame(fen);
+        return tablebase.probe(game);
+    }
+}